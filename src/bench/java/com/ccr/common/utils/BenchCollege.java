@@ -0,0 +1,26 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 性能测试用的嵌套对象，通过 college.name 这样的属性路径导出
+ */
+public class BenchCollege {
+
+    private String name;
+    private String city;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ccr.common.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @Description 性能测试的数据和公共工具，各JMH用例共用，保证导出、导入、属性取值赋值和查重用例测量的是同样的数据
+ */
+final class BenchData {
+
+    static final LinkedHashMap<String, String> EXPORT_FIELDS = new LinkedHashMap<String, String>();
+
+    static final LinkedHashMap<String, String> IMPORT_FIELDS = new LinkedHashMap<String, String>();
+
+    /**
+     * 导入和查重用例的业务主键
+     */
+    static final String[] UNIQUE_FIELDS = {"编号"};
+
+    static {
+        EXPORT_FIELDS.put("id", "编号");
+        EXPORT_FIELDS.put("name", "姓名");
+        EXPORT_FIELDS.put("score", "分数");
+        EXPORT_FIELDS.put("phone", "电话");
+        EXPORT_FIELDS.put("college.name", "学院");
+        EXPORT_FIELDS.put("college.city", "城市");
+
+        IMPORT_FIELDS.put("id", "编号");
+        IMPORT_FIELDS.put("name", "姓名");
+        IMPORT_FIELDS.put("score", "分数");
+        IMPORT_FIELDS.put("phone", "电话");
+    }
+
+    private BenchData() {
+    }
+
+    /**
+     * @param rows           行数
+     * @param duplicateRatio 复制前面某一行姓名和学院的行所占的比例
+     * @return 生成的数据，固定随机种子，每次运行相同
+     */
+    static List<BenchStudent> students(int rows, double duplicateRatio) {
+        Random random = new Random(42);
+        String[] cities = {"北京", "上海", "广州", "深圳", "杭州", "成都", "武汉", "西安"};
+        BenchCollege[] colleges = new BenchCollege[32];
+        for (int i = 0; i < colleges.length; i++) {
+            colleges[i] = new BenchCollege();
+            colleges[i].setName("第" + (i + 1) + "学院");
+            colleges[i].setCity(cities[i % cities.length]);
+        }
+        List<BenchStudent> list = new ArrayList<BenchStudent>(rows);
+        for (int i = 0; i < rows; i++) {
+            BenchStudent student = new BenchStudent();
+            student.setId(i + 1);
+            student.setScore(random.nextInt(101));
+            student.setPhone(13000000000L + random.nextInt(1000000000));
+            if (i > 0 && random.nextDouble() < duplicateRatio) {
+                int from = random.nextInt(i);
+                student.setName(list.get(from).getName());
+                student.setCollege(list.get(from).getCollege());
+            } else {
+                student.setName("学生" + Integer.toString(i, 36) + "-" + random.nextInt(1000));
+                student.setCollege(colleges[random.nextInt(colleges.length)]);
+            }
+            list.add(student);
+        }
+        return list;
+    }
+
+    /**
+     * @return 导出得到的文件内容，作为导入用例的输入
+     */
+    static byte[] export(List<BenchStudent> students, ExcelFormat format) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ExcelUtils.listToExcel(students, EXPORT_FIELDS, "sheet", 0, new ExportOptions().setFormat(format), os);
+        return os.toByteArray();
+    }
+
+    /**
+     * @return 属性赋值用例的单元格内容，列与IMPORT_FIELDS一致
+     */
+    static String[][] cells(List<BenchStudent> students) {
+        String[][] cells = new String[students.size()][];
+        for (int i = 0; i < cells.length; i++) {
+            BenchStudent student = students.get(i);
+            cells[i] = new String[]{String.valueOf(student.getId()), student.getName(),
+                    String.valueOf(student.getScore()), String.valueOf(student.getPhone())};
+        }
+        return cells;
+    }
+
+    /**
+     * @return 查重用例的复合主键（姓名+学院），1%的重复行
+     */
+    static String[][] uniqueKeys(int rows) {
+        List<BenchStudent> students = students(rows, 0.01);
+        String[][] keys = new String[rows][];
+        for (int i = 0; i < rows; i++) {
+            BenchStudent student = students.get(i);
+            keys[i] = new String[]{student.getName(), student.getCollege().getName()};
+        }
+        return keys;
+    }
+
+    /**
+     * @return 发现的重复行个数
+     */
+    static long scan(String[][] keys, boolean compact) throws Exception {
+        DuplicateKeyIndex index = new DuplicateKeyIndex(compact);
+        for (int i = 0; i < keys.length; i++) {
+            index.add(keys[i], i + 2);
+        }
+        return index.getDuplicates().size();
+    }
+
+    /**
+     * @Description 只统计写入字节数的输出流
+     */
+    static class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 性能测试用的数据对象，在Student的基础上增加了嵌套的学院信息
+ */
+public class BenchStudent {
+
+    private int id;
+    private String name;
+    private int score;
+    private long phone;
+    private BenchCollege college;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public long getPhone() {
+        return phone;
+    }
+
+    public void setPhone(long phone) {
+        this.phone = phone;
+    }
+
+    public BenchCollege getCollege() {
+        return college;
+    }
+
+    public void setCollege(BenchCollege college) {
+        this.college = college;
+    }
+}
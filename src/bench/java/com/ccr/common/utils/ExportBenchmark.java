@@ -0,0 +1,61 @@
+package com.ccr.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description 导出的JMH用例：写入只计数的输出流，不受磁盘影响。xls每个工作表最多65535行，行数超出时分为多个工作表。
+ * 运行方式见bench/build.gradle
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ExportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private List<BenchStudent> students;
+
+    @Setup
+    public void setUp() {
+        students = BenchData.students(rows, 0.0);
+    }
+
+    @Benchmark
+    public long xls() throws Exception {
+        BenchData.CountingOutputStream os = new BenchData.CountingOutputStream();
+        ExcelUtils.listToExcel(students, BenchData.EXPORT_FIELDS, "sheet", 65535, new ExportOptions(), os);
+        return os.count;
+    }
+
+    @Benchmark
+    public long xlsx() throws Exception {
+        BenchData.CountingOutputStream os = new BenchData.CountingOutputStream();
+        ExcelUtils.listToExcel(students, BenchData.EXPORT_FIELDS, "sheet", 0, new ExportOptions().setFormat(ExcelFormat.XLSX), os);
+        return os.count;
+    }
+
+    @Benchmark
+    public long xlsxTyped() throws Exception {
+        BenchData.CountingOutputStream os = new BenchData.CountingOutputStream();
+        ExcelUtils.listToExcel(students, BenchData.EXPORT_FIELDS, "sheet", 0,
+                new ExportOptions().setFormat(ExcelFormat.XLSX).setTypedCells(true), os);
+        return os.count;
+    }
+}
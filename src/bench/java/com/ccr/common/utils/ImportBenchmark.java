@@ -0,0 +1,69 @@
+package com.ccr.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * @Description 导入的JMH用例：文件在准备阶段生成，只测量解析和转换。
+ * xls每个工作表最多65535行，行数超出时导出为多个工作表，由excelToMap解析一次工作簿导入全部工作表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ImportBenchmark {
+
+    private static final Pattern XLS_SHEETS = Pattern.compile("sheet\\d*");
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private byte[] xls;
+
+    private byte[] xlsx;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<BenchStudent> students = BenchData.students(rows, 0.0);
+        xls = BenchData.export(students, ExcelFormat.XLS);
+        xlsx = BenchData.export(students, ExcelFormat.XLSX);
+    }
+
+    @Benchmark
+    public int xls() throws Exception {
+        int count = 0;
+        for (List<BenchStudent> sheet : ExcelUtils.excelToMap(new ByteArrayInputStream(xls), XLS_SHEETS, BenchStudent.class,
+                BenchData.IMPORT_FIELDS, BenchData.UNIQUE_FIELDS, new ImportOptions()).values()) {
+            count += sheet.size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long xlsx() throws Exception {
+        Stream<BenchStudent> stream = ExcelUtils.excelToStream(new ByteArrayInputStream(xlsx), "sheet",
+                BenchStudent.class, BenchData.IMPORT_FIELDS, BenchData.UNIQUE_FIELDS);
+        try {
+            return stream.count();
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ccr.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description 属性取值和赋值的JMH用例：
+ * 取值包括嵌套属性college.name，赋值包括单元格内容到属性类型的转换；每次调用都包含编译访问计划（命中缓存）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ReflectionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private List<BenchStudent> students;
+
+    private String[][] cells;
+
+    private String[] accessorFields;
+
+    private String[] binderFields;
+
+    @Setup
+    public void setUp() {
+        students = BenchData.students(rows, 0.0);
+        cells = BenchData.cells(students);
+        accessorFields = BenchData.EXPORT_FIELDS.keySet().toArray(new String[0]);
+        binderFields = BenchData.IMPORT_FIELDS.keySet().toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) throws Exception {
+        RowAccessorPlan plan = RowAccessorPlan.of(BenchStudent.class, accessorFields);
+        for (BenchStudent student : students) {
+            for (int i = 0; i < accessorFields.length; i++) {
+                blackhole.consume(plan.getValue(student, i));
+            }
+        }
+    }
+
+    @Benchmark
+    public void set(Blackhole blackhole) throws Exception {
+        RowBinderPlan plan = RowBinderPlan.of(BenchStudent.class, binderFields);
+        for (String[] row : cells) {
+            Object entity = plan.newInstance();
+            for (int i = 0; i < row.length; i++) {
+                plan.bind(entity, i, row[i]);
+            }
+            blackhole.consume(entity);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ccr.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description 业务主键查重的JMH用例：复合主键（姓名+学院），1%的重复行，
+ * 分别测量精确索引和紧凑索引
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class UniqueKeyBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private String[][] keys;
+
+    @Setup
+    public void setUp() {
+        keys = BenchData.uniqueKeys(rows);
+    }
+
+    @Benchmark
+    public long exact() throws Exception {
+        return BenchData.scan(keys, false);
+    }
+
+    @Benchmark
+    public long compact() throws Exception {
+        return BenchData.scan(keys, true);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ccr.common.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @Description 标注在实体类的字段上，声明该字段对应Excel中的哪一列，代替手工构造的fieldMap。
+ * 例：@ExcelColumn(name = "分数", order = 3, format = "0.0")
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ExcelColumn {
+
+    /**
+     * @return Excel中的中文列名
+     */
+    String name();
+
+    /**
+     * @return 列的顺序，从小到大排列，相同时按字段声明的顺序（父类的字段在前）
+     */
+    int order() default 0;
+
+    /**
+     * @return 单元格格式：数字字段为Excel数字格式（如 #,##0.00），日期字段为日期格式（如 yyyy-MM-dd），
+     * 按类型导出时使用；日期字段导入时也按该格式解析
+     */
+    String format() default "";
+
+    /**
+     * @return 固定的列宽（字符数），小于等于0时自动计算
+     */
+    int width() default 0;
+}
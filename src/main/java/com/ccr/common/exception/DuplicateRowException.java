@@ -0,0 +1,52 @@
+package com.ccr.common.exception;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @Description 导入的Excel中业务主键（复合主键）的组合有重复时抛出，
+ * 通过getRowPairs()可以拿到所有重复的行，便于一次性提示用户。
+ */
+public class DuplicateRowException extends ExcelException {
+
+    private static final long serialVersionUID = -2205790113642619851L;
+
+    /**
+     * 消息中最多列出的重复行数，全部重复行通过getRowPairs()获取
+     */
+    private static final int MAX_PAIRS_IN_MESSAGE = 20;
+
+    private final List<int[]> rowPairs;
+
+    /**
+     * @param rowPairs 重复的行，每个元素为{先出现的行号, 重复的行号}，行号与Excel中显示的一致（从1开始）
+     */
+    public DuplicateRowException(List<int[]> rowPairs) {
+        super(buildMessage(rowPairs));
+        this.rowPairs = Collections.unmodifiableList(new ArrayList<int[]>(rowPairs));
+    }
+
+    /**
+     * @return 重复的行，每个元素为{先出现的行号, 重复的行号}
+     */
+    public List<int[]> getRowPairs() {
+        return rowPairs;
+    }
+
+    private static String buildMessage(List<int[]> rowPairs) {
+        StringBuilder sb = new StringBuilder("Excel中有重复行，请检查：");
+        int count = Math.min(rowPairs.size(), MAX_PAIRS_IN_MESSAGE);
+        for (int i = 0; i < count; i++) {
+            int[] pair = rowPairs.get(i);
+            if (i > 0) {
+                sb.append("；");
+            }
+            sb.append("第").append(pair[1]).append("行与第").append(pair[0]).append("行重复");
+        }
+        if (rowPairs.size() > count) {
+            sb.append("……共").append(rowPairs.size()).append("处重复");
+        }
+        return sb.toString();
+    }
+}
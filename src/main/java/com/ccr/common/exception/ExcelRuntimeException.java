@@ -0,0 +1,19 @@
+package com.ccr.common.exception;
+
+/**
+ * @Description 在不能抛出受检异常的地方（如Stream、Iterator中）包装ExcelException，
+ * 通过getCause()可以拿到原始的ExcelException。
+ */
+public class ExcelRuntimeException extends RuntimeException {
+
+    private static final long serialVersionUID = -3069128153711294627L;
+
+    public ExcelRuntimeException(ExcelException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized ExcelException getCause() {
+        return (ExcelException) super.getCause();
+    }
+}
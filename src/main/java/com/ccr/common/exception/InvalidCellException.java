@@ -0,0 +1,18 @@
+package com.ccr.common.exception;
+
+/**
+ * @Description 单元格内容无法转换为字段值时抛出。
+ * 不记录调用栈，创建的开销很小，自定义的CellConverter在大量单元格有误时也可以放心抛出；
+ * 校验导入时异常消息直接作为错误原因显示给用户。
+ */
+public class InvalidCellException extends ExcelException {
+
+    private static final long serialVersionUID = -3180592874301525914L;
+
+    /**
+     * @param reason 错误原因，如：不是有效的日期
+     */
+    public InvalidCellException(String reason) {
+        super(reason, null, false, false);
+    }
+}
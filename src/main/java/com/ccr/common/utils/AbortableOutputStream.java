@@ -0,0 +1,53 @@
+package com.ccr.common.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * @Description 写入器与调用方输出流之间的一层：关闭时只刷新、不关闭调用方的流；
+ * 放弃导出（abort）后丢弃之后写入的所有内容，这样写入器可以照常关闭以释放临时文件、压缩器等资源，
+ * 而不会向调用方的流中再写入半个文件。
+ */
+class AbortableOutputStream extends FilterOutputStream {
+
+    private boolean aborted;
+
+    AbortableOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * @MethodName : abort
+     * @Description : 放弃导出，之后写入的内容全部丢弃
+     */
+    void abort() {
+        aborted = true;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!aborted) {
+            out.write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (!aborted) {
+            out.write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!aborted) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
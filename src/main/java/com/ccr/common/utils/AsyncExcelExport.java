@@ -0,0 +1,326 @@
+package com.ccr.common.utils;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description 基于Servlet 3.1异步非阻塞输出的导出：请求线程启动异步处理后立即返回，
+ * 生成线程把文件写入一个有界的数据块队列，容器在客户端可写时（WriteListener）把数据块写出。
+ * 客户端接收慢时队列写满，生成线程随之等待，内存占用不超过 数据块大小×数据块个数；
+ * 客户端断开或超时时生成线程在下一次写入时停止。
+ * 已经写出数据后生成失败时不能再改为错误状态，此时把异常记录到请求上标记响应出错，并总是结束异步处理，
+ * 连接和容器的异步资源不会一直被占用；异步处理有超时时间（ExportOptions.setAsyncTimeout，默认10分钟）。
+ * 只有xlsx是边生成边写出的，xls受JXL限制要在全部生成后才开始写出。
+ */
+class AsyncExcelExport implements WriteListener, AsyncListener {
+
+    /**
+     * 第一个数据块的大小，尽快把响应头和文件开头发送给客户端
+     */
+    private static final int FIRST_CHUNK_SIZE = 4 * 1024;
+
+    /**
+     * 生成文件的任务，在生成线程中执行
+     */
+    interface ExportTask {
+
+        /**
+         * @param os 导出流，任务结束后由调用方关闭
+         * @throws Exception
+         */
+        void export(OutputStream os) throws Exception;
+    }
+
+    private final AsyncContext asyncContext;
+
+    private final HttpServletResponse response;
+
+    private final ServletOutputStream out;
+
+    private final BlockingQueue<byte[]> chunks;
+
+    private final int chunkSize;
+
+    /**
+     * 上一次isReady()返回了false，等待容器回调onWritePossible()
+     */
+    private boolean awaitingWritePossible;
+
+    /**
+     * 已写出过数据，响应已提交
+     */
+    private boolean committed;
+
+    private boolean completed;
+
+    /**
+     * 已写出数据后生成失败，正在结束异步处理，不再写出
+     */
+    private boolean failed;
+
+    /**
+     * 正在容器的写出回调（onWritePossible）中
+     */
+    private boolean inWriteCallback;
+
+    /**
+     * 在写出回调中发现已提交的响应生成失败，回调结束时抛出，由容器关闭连接并回调onError
+     */
+    private IOException callbackFailure;
+
+    private volatile boolean produced;
+
+    private volatile boolean aborted;
+
+    private volatile Throwable failure;
+
+    private AsyncExcelExport(AsyncContext asyncContext, HttpServletResponse response, ExportOptions options) throws IOException {
+        this.asyncContext = asyncContext;
+        this.response = response;
+        this.out = response.getOutputStream();
+        this.chunks = new ArrayBlockingQueue<byte[]>(options.getAsyncMaxPendingChunks());
+        this.chunkSize = options.getAsyncChunkSize();
+    }
+
+    /**
+     * @param asyncContext 已启动的异步上下文
+     * @param response     已设置好头信息的response
+     * @param options      导出选项
+     * @param task         生成文件的任务
+     * @throws IOException
+     * @MethodName : start
+     * @Description : 注册监听器并在生成线程中开始生成文件，本方法立即返回
+     */
+    static void start(AsyncContext asyncContext, HttpServletResponse response, ExportOptions options,
+                      final ExportTask task) throws IOException {
+        asyncContext.setTimeout(Math.max(options.getAsyncTimeout(), 0));
+        final AsyncExcelExport export = new AsyncExcelExport(asyncContext, response, options);
+        asyncContext.addListener(export);
+        export.out.setWriteListener(export);
+
+        Runnable producer = new Runnable() {
+            @Override
+            public void run() {
+                export.produce(task);
+            }
+        };
+        Executor executor = options.getAsyncExecutor();
+        if (executor != null) {
+            executor.execute(producer);
+        } else {
+            asyncContext.start(producer);
+        }
+    }
+
+    private void produce(ExportTask task) {
+        ChunkOutputStream os = new ChunkOutputStream();
+        try {
+            task.export(os);
+            os.close();
+        } catch (Throwable e) {
+            if (!aborted) {
+                e.printStackTrace();
+                failure = e;
+            }
+        } finally {
+            produced = true;
+            drain();
+        }
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        IOException failure;
+        synchronized (this) {
+            awaitingWritePossible = false;
+            inWriteCallback = true;
+            try {
+                drain();
+            } finally {
+                inWriteCallback = false;
+            }
+            failure = callbackFailure;
+            callbackFailure = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @MethodName : drain
+     * @Description : 在客户端可写时把队列中的数据块写出，容器线程和生成线程都会调用，同一时间只有一个线程在写。
+     * 队列为空时返回，等生成线程放入下一个数据块后再调用；不可写时返回，等容器回调onWritePossible()
+     */
+    private synchronized void drain() {
+        if (completed || failed || awaitingWritePossible) {
+            return;
+        }
+        try {
+            while (true) {
+                if (aborted) {
+                    complete();
+                    return;
+                }
+                if (!out.isReady()) {
+                    awaitingWritePossible = true;
+                    return;
+                }
+                byte[] chunk = chunks.poll();
+                if (chunk == null) {
+                    // 先确认生成已结束再确认队列为空，避免漏掉结束前放入的最后一块
+                    if (produced && chunks.isEmpty()) {
+                        if (failure != null && committed) {
+                            abortCommitted();
+                            return;
+                        }
+                        if (failure != null) {
+                            // 还没有写出任何数据时可以改为返回错误状态
+                            response.reset();
+                            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                        }
+                        complete();
+                    }
+                    return;
+                }
+                out.write(chunk);
+                committed = true;
+            }
+        } catch (IOException e) {
+            abort();
+        }
+    }
+
+    private void complete() {
+        if (!completed) {
+            completed = true;
+            chunks.clear();
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * @MethodName : abortCommitted
+     * @Description : 已经写出数据后生成失败：响应头已经发出，不能再改为错误状态，
+     * 先把异常记录到请求的javax.servlet.error.exception属性上，让容器、过滤器和访问日志知道响应出错。
+     * 在写出回调中时抛出异常，容器关闭连接并回调onError，由onError结束异步处理；
+     * 否则直接结束异步处理，已写出的部分不是完整的xls/xlsx文件，客户端无法打开。
+     * 无论哪种情况都会结束异步处理，连接和容器的异步资源不会一直被占用
+     */
+    private void abortCommitted() {
+        failed = true;
+        chunks.clear();
+        IOException error = new IOException("导出Excel失败，响应已提交，中止连接", failure);
+        asyncContext.getRequest().setAttribute(RequestDispatcher.ERROR_EXCEPTION, error);
+        if (inWriteCallback) {
+            callbackFailure = error;
+            return;
+        }
+        complete();
+    }
+
+    private synchronized void abort() {
+        aborted = true;
+        // 唤醒可能正在等待队列空位的生成线程
+        chunks.clear();
+        complete();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        abort();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        aborted = aborted || !produced;
+        chunks.clear();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        abort();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        abort();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    /**
+     * @Description 生成线程写入的输出流：写满一个数据块后放入队列并通知写出，
+     * 队列满时等待（客户端背压），导出被中止后写入时抛出IOException使生成任务停止
+     */
+    private class ChunkOutputStream extends OutputStream {
+
+        private byte[] buffer = new byte[Math.min(FIRST_CHUNK_SIZE, chunkSize)];
+
+        private int count;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            if (aborted) {
+                throw new IOException("客户端已断开，导出中止");
+            }
+            if (count == 0) {
+                return;
+            }
+            byte[] chunk = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+            try {
+                while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (aborted) {
+                        throw new IOException("客户端已断开，导出中止");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("导出被中断", e);
+            }
+            buffer = new byte[chunkSize];
+            count = 0;
+            drain();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 导入时将单元格文本转换为字段值的转换器。
+ * 可以按字段类型全局注册（ExcelUtils.registerConverter），也可以在导入时按列（英文属性名）指定。
+ * 转换器会被多个线程共享，实现类必须是线程安全的。
+ */
+public interface CellConverter<T> {
+
+    /**
+     * @param content 单元格内容（已去除首尾空白）
+     * @return 转换后的字段值
+     * @throws Exception 内容无法转换时抛出，推荐抛出InvalidCellException（不记录调用栈，消息作为错误原因）
+     */
+    T convert(String content) throws Exception;
+}
@@ -0,0 +1,49 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 校验导入时发现的一处错误：哪一行、哪一列、原始内容是什么、为什么不能导入
+ */
+public class CellError {
+
+    private final int row;
+
+    private final String column;
+
+    private final String value;
+
+    private final String reason;
+
+    /**
+     * @param row    行号，与Excel中显示的一致（从1开始）
+     * @param column 列名（Excel中的中文列名，业务主键重复时为各主键列名以“+”连接）
+     * @param value  单元格的原始内容
+     * @param reason 错误原因
+     */
+    public CellError(int row, String column, String value, String reason) {
+        this.row = row;
+        this.column = column;
+        this.value = value;
+        this.reason = reason;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "第" + row + "行[" + column + "]的内容\"" + value + "\"有误：" + reason;
+    }
+}
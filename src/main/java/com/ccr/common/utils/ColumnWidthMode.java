@@ -0,0 +1,22 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 导出时自动列宽的计算方式
+ */
+public enum ColumnWidthMode {
+
+    /**
+     * 根据所有行计算列宽（xlsx边写边输出，列宽只能根据写出前缓冲的行计算）
+     */
+    FULL,
+
+    /**
+     * 只根据列头和前N行计算列宽，N由ExportOptions.setColumnWidthSampleRows指定
+     */
+    SAMPLED,
+
+    /**
+     * 不计算列宽，使用Excel的默认列宽
+     */
+    NONE
+}
@@ -0,0 +1,162 @@
+package com.ccr.common.utils;
+
+import java.util.Date;
+
+/**
+ * @Description 列宽跟踪器：在写入每一行时顺便更新各列的最大显示宽度，不需要写完后再遍历一遍工作表。
+ * 显示宽度按字符计算，中日韩文字及全角字符占两个字符宽度。
+ * 指定了固定列宽的列不再跟踪，直接使用固定列宽。
+ */
+class ColumnWidthTracker {
+
+    /**
+     * 在最宽单元格的基础上额外增加的宽度
+     */
+    private static final int EXTRA_WIDTH = 5;
+
+    /**
+     * Excel允许的最大列宽（字符数）
+     */
+    private static final int MAX_WIDTH = 255;
+
+    private final int[] widths;
+
+    /**
+     * 各列的固定列宽，0表示按内容计算
+     */
+    private final int[] fixedWidths;
+
+    private final ColumnWidthMode mode;
+
+    private final int sampleRows;
+
+    private int trackedRows;
+
+    ColumnWidthTracker(String[] headers, int[] fixedWidths, ExportOptions options) {
+        this.widths = new int[headers.length];
+        this.fixedWidths = fixedWidths != null ? fixedWidths : new int[headers.length];
+        this.mode = options.getColumnWidthMode();
+        this.sampleRows = options.getColumnWidthSampleRows();
+        if (mode != ColumnWidthMode.NONE) {
+            for (int i = 0; i < headers.length; i++) {
+                widths[i] = displayWidth(headers[i]);
+            }
+        }
+    }
+
+    /**
+     * @return 是否还需要跟踪后续的行
+     */
+    boolean isTracking() {
+        return mode == ColumnWidthMode.FULL || (mode == ColumnWidthMode.SAMPLED && trackedRows < sampleRows);
+    }
+
+    /**
+     * @return 是否需要设置列宽（不计算列宽时，有固定列宽的列仍需设置）
+     */
+    boolean isEnabled() {
+        if (mode != ColumnWidthMode.NONE) {
+            return true;
+        }
+        for (int width : fixedWidths) {
+            if (width > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param col  列号
+     * @param text 单元格文本
+     * @MethodName : trackCell
+     * @Description : 用一个单元格更新所在列的最大宽度，调用前应先判断isTracking()，一行结束后调用endRow()
+     */
+    void trackCell(int col, String text) {
+        // 先用字符数做一次快速判断，显示宽度不会超过字符数的两倍
+        if (col < widths.length && fixedWidths[col] == 0 && text.length() * 2 > widths[col]) {
+            int width = displayWidth(text);
+            if (width > widths[col]) {
+                widths[col] = width;
+            }
+        }
+    }
+
+    /**
+     * @param col         列号
+     * @param value       单元格的值（按类型写出时可能是Number、Date、Boolean）
+     * @param datePattern 日期单元格使用的格式
+     * @MethodName : trackValue
+     * @Description : 与trackCell相同，日期按格式的长度估算宽度，不需要为此格式化日期
+     */
+    void trackValue(int col, Object value, String datePattern) {
+        if (value instanceof String) {
+            trackCell(col, (String) value);
+        } else if (value instanceof Date) {
+            trackCell(col, datePattern);
+        } else if (value != null) {
+            trackCell(col, value.toString());
+        }
+    }
+
+    /**
+     * @MethodName : endRow
+     * @Description : 一行跟踪结束
+     */
+    void endRow() {
+        trackedRows++;
+    }
+
+    /**
+     * @param col 列号
+     * @return 该列最终的列宽（固定列宽，或最宽单元格的宽度+额外宽度），不计算列宽且没有固定列宽时返回0，表示不设置
+     */
+    int getWidth(int col) {
+        if (fixedWidths[col] > 0) {
+            return Math.min(fixedWidths[col], MAX_WIDTH);
+        }
+        if (mode == ColumnWidthMode.NONE) {
+            return 0;
+        }
+        return Math.min(widths[col] + EXTRA_WIDTH, MAX_WIDTH);
+    }
+
+    /**
+     * @return 列数
+     */
+    int size() {
+        return widths.length;
+    }
+
+    /**
+     * @param text 文本
+     * @return 显示宽度，中日韩文字及全角字符按2计算
+     */
+    static int displayWidth(String text) {
+        int width = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            if (ch < 0x1100) {
+                width++;
+            } else if (Character.isHighSurrogate(ch)) {
+                // 增补平面中的字符（包括中日韩扩展汉字和表情符号）按宽字符处理
+                width += 2;
+                i++;
+            } else {
+                width += isWide(ch) ? 2 : 1;
+            }
+        }
+        return width;
+    }
+
+    private static boolean isWide(char ch) {
+        return (ch >= 0x1100 && ch <= 0x115F)
+                || (ch >= 0x2E80 && ch <= 0xA4CF && ch != 0x303F)
+                || (ch >= 0xAC00 && ch <= 0xD7A3)
+                || (ch >= 0xF900 && ch <= 0xFAFF)
+                || (ch >= 0xFE30 && ch <= 0xFE4F)
+                || (ch >= 0xFF00 && ch <= 0xFF60)
+                || (ch >= 0xFFE0 && ch <= 0xFFE6);
+    }
+}
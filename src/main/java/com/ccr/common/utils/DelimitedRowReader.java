@@ -0,0 +1,306 @@
+package com.ccr.common.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description CSV/TSV读取器：按RFC 4180解析，引号内可以包含分隔符、换行，两个引号表示一个引号；
+ * 字段不以引号开头时按原样读取。输入流通过通道读入字节缓冲区，本地文件按窗口做内存映射后整块复制到字节缓冲区，
+ * 解码后直接在字符缓冲区上解析，不经过BufferedReader逐行复制。开头的BOM会被忽略。
+ */
+class DelimitedRowReader implements SheetRowReader, Closeable {
+
+    private static final int BYTE_BUFFER_SIZE = 64 * 1024;
+
+    private static final int CHAR_BUFFER_SIZE = 32 * 1024;
+
+    /**
+     * 内存映射的窗口大小，大文件分段映射
+     */
+    private static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final char delimiter;
+
+    private final CharsetDecoder decoder;
+
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+    private final char[] buffer = chars.array();
+
+    /**
+     * 通过通道读取时的数据源，内存映射时为null
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * 内存映射的文件，通过通道读取时为null
+     */
+    private final FileChannel file;
+
+    private final long fileSize;
+
+    /**
+     * 当前映射窗口在文件中的起始位置
+     */
+    private long mapStart;
+
+    /**
+     * 当前映射窗口，通过通道读取时为null
+     */
+    private ByteBuffer mapped;
+
+    /**
+     * 待解码的字节。映射窗口中的字节整块复制到这里再解码，堆内缓冲区的解码比直接在映射内存上逐字节解码快
+     */
+    private final ByteBuffer bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+
+    private int pos;
+
+    private int limit;
+
+    private boolean endOfInput;
+
+    private boolean flushed;
+
+    private boolean exhausted;
+
+    private boolean first = true;
+
+    private final StringBuilder field = new StringBuilder();
+
+    private final List<String> fields = new ArrayList<String>();
+
+    private int rowIndex = -1;
+
+    private boolean[] columns;
+
+    private DelimitedRowReader(ReadableByteChannel channel, FileChannel file, char delimiter, Charset charset) throws IOException {
+        this.channel = channel;
+        this.file = file;
+        this.fileSize = file != null ? file.size() : 0;
+        this.delimiter = delimiter;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        if (file != null) {
+            mapped = file.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(MAP_WINDOW_SIZE, fileSize));
+        }
+        bytes.flip();
+    }
+
+    /**
+     * @param is        输入流，不会被关闭
+     * @param delimiter 字段分隔符
+     * @param charset   字符集
+     * @return 读取器
+     */
+    static DelimitedRowReader open(InputStream is, char delimiter, Charset charset) throws IOException {
+        return new DelimitedRowReader(Channels.newChannel(is), null, delimiter, charset);
+    }
+
+    /**
+     * @param file      本地文件，按窗口做内存映射
+     * @param delimiter 字段分隔符
+     * @param charset   字符集
+     * @return 读取器，关闭时关闭文件
+     */
+    static DelimitedRowReader map(File file, char delimiter, Charset charset) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new DelimitedRowReader(null, fileChannel, delimiter, charset);
+        } catch (IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void setColumns(boolean[] columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public String[] nextRow() throws IOException {
+        if (exhausted) {
+            return null;
+        }
+        fields.clear();
+        field.setLength(0);
+        int col = 0;
+        // 不需要的列不保存字符，只记录是否有值
+        boolean keep = isWanted(col);
+        boolean skippedValue = false;
+        boolean fieldStart = true;
+        boolean quoted = false;
+        boolean empty = true;
+        while (true) {
+            if (pos == limit && !fillChars()) {
+                // 文件结束：最后一行没有换行符时也作为一行返回
+                exhausted = true;
+                if (empty) {
+                    return null;
+                }
+                break;
+            }
+            char ch = buffer[pos++];
+            empty = false;
+            if (quoted) {
+                if (ch == '"') {
+                    if (pos == limit && !fillChars()) {
+                        quoted = false;
+                        continue;
+                    }
+                    if (buffer[pos] == '"') {
+                        pos++;
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                if (keep) {
+                    field.append(ch);
+                } else {
+                    skippedValue = true;
+                }
+            } else if (ch == delimiter) {
+                endField(keep, skippedValue);
+                keep = isWanted(++col);
+                skippedValue = false;
+                fieldStart = true;
+            } else if (ch == '\n') {
+                break;
+            } else if (ch == '\r') {
+                if ((pos < limit || fillChars()) && buffer[pos] == '\n') {
+                    pos++;
+                }
+                break;
+            } else if (ch == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else {
+                fieldStart = false;
+                if (keep) {
+                    field.append(ch);
+                } else {
+                    skippedValue = true;
+                }
+            }
+        }
+        endField(keep, skippedValue);
+        rowIndex++;
+        return fields.toArray(new String[fields.size()]);
+    }
+
+    private boolean isWanted(int col) {
+        return columns == null || col < columns.length && columns[col];
+    }
+
+    private void endField(boolean keep, boolean skippedValue) {
+        if (keep) {
+            fields.add(field.toString());
+            field.setLength(0);
+        } else {
+            fields.add(skippedValue ? SKIPPED : "");
+        }
+    }
+
+    @Override
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    /**
+     * @return 是否读到了新的字符，输入结束时返回false
+     */
+    private boolean fillChars() throws IOException {
+        while (!flushed) {
+            chars.clear();
+            decodeChunk();
+            chars.flip();
+            pos = 0;
+            limit = chars.limit();
+            if (first && limit > 0) {
+                first = false;
+                if (buffer[0] == '\uFEFF') {
+                    pos = 1;
+                }
+            }
+            if (pos < limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解码到字符缓冲区，直到读到字符或输入结束
+     */
+    private void decodeChunk() throws IOException {
+        while (true) {
+            decoder.decode(bytes, chars, endOfInput);
+            if (chars.position() > 0) {
+                return;
+            }
+            if (endOfInput) {
+                decoder.flush(chars);
+                flushed = true;
+                return;
+            }
+            if (!fillBytes()) {
+                endOfInput = true;
+            }
+        }
+    }
+
+    /**
+     * @return 是否读到了新的字节，输入结束时返回false
+     */
+    private boolean fillBytes() throws IOException {
+        if (file != null) {
+            if (!mapped.hasRemaining()) {
+                long start = mapStart + mapped.limit();
+                if (start >= fileSize) {
+                    return false;
+                }
+                mapStart = start;
+                mapped = file.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_WINDOW_SIZE, fileSize - start));
+            }
+            // 未解码完的字节（可能是多字节字符的前半部分）保留在缓冲区开头
+            bytes.compact();
+            int n = Math.min(bytes.remaining(), mapped.remaining());
+            ByteBuffer slice = mapped.duplicate();
+            slice.limit(slice.position() + n);
+            bytes.put(slice);
+            mapped.position(mapped.position() + n);
+            bytes.flip();
+            return true;
+        }
+        bytes.compact();
+        int n = 0;
+        while (n == 0) {
+            n = channel.read(bytes);
+        }
+        bytes.flip();
+        return n > 0;
+    }
+}
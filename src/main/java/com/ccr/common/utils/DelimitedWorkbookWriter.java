@@ -0,0 +1,180 @@
+package com.ccr.common.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description CSV/TSV写入器：字段逐个字符写入字符缓冲区，满了再编码到字节缓冲区并写入通道，
+ * 不为每行拼接字符串。字段中含有分隔符、引号或换行时按RFC 4180加引号，引号写为两个引号，行尾为CRLF。
+ * 文本格式只有一个“工作表”，列宽、单元格格式都不适用；按类型写出时日期按列格式（或默认日期格式）格式化。
+ */
+class DelimitedWorkbookWriter implements WorkbookWriter {
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+
+    private static final int BYTE_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+
+    private final CharsetEncoder encoder;
+
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+    private final ByteBuffer bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+
+    private final char delimiter;
+
+    private final ExportOptions options;
+
+    /**
+     * 格式 -> 日期格式化器，只在当前线程使用
+     */
+    private final Map<String, SimpleDateFormat> dateFormats = new HashMap<String, SimpleDateFormat>();
+
+    private String[] formats;
+
+    private boolean headerWritten;
+
+    DelimitedWorkbookWriter(OutputStream os, ExportOptions options) {
+        this.channel = Channels.newChannel(os);
+        this.encoder = options.getCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.delimiter = options.getFormat().getDelimiter();
+        this.options = options;
+    }
+
+    @Override
+    public void startSheet(String sheetName, String[] headers, String[] formats, int[] widths) throws Exception {
+        this.formats = formats;
+        // 文本格式没有分页，只写一次列头
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        if (options.isWriteBom() && options.getCharset().name().startsWith("UTF")) {
+            // 带BOM时Excel才能正确识别UTF-8编码的中文
+            put('\uFEFF');
+        }
+        writeRow(headers);
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws Exception {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                put(delimiter);
+            }
+            Object value = values[i];
+            if (value instanceof Date) {
+                writeField(dateFormat(i).format((Date) value));
+            } else {
+                writeField(value == null ? "" : value.toString());
+            }
+        }
+        put('\r');
+        put('\n');
+    }
+
+    @Override
+    public void endSheet() throws Exception {
+    }
+
+    @Override
+    public void renameSheet(int sheetIndex, String sheetName) throws Exception {
+    }
+
+    @Override
+    public void finish() throws Exception {
+        chars.flip();
+        encode(true);
+        while (encoder.flush(bytes) == CoderResult.OVERFLOW) {
+            drainBytes();
+        }
+        drainBytes();
+    }
+
+    @Override
+    public void abort() {
+        // 缓冲区都在堆内，没有需要释放的资源，未写出的内容直接丢弃
+    }
+
+    /**
+     * @param field 字段内容
+     * @MethodName : writeField
+     * @Description : 写入一个字段，需要时加引号
+     */
+    private void writeField(String field) throws IOException {
+        int length = field.length();
+        boolean quote = false;
+        for (int i = 0; i < length; i++) {
+            char ch = field.charAt(i);
+            if (ch == delimiter || ch == '"' || ch == '\r' || ch == '\n') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            for (int i = 0; i < length; i++) {
+                put(field.charAt(i));
+            }
+            return;
+        }
+        put('"');
+        for (int i = 0; i < length; i++) {
+            char ch = field.charAt(i);
+            if (ch == '"') {
+                put('"');
+            }
+            put(ch);
+        }
+        put('"');
+    }
+
+    private void put(char ch) throws IOException {
+        if (!chars.hasRemaining()) {
+            chars.flip();
+            encode(false);
+            chars.compact();
+        }
+        chars.put(ch);
+    }
+
+    /**
+     * 把字符缓冲区中的内容编码到字节缓冲区，字节缓冲区满时写入通道
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        while (encoder.encode(chars, bytes, endOfInput) == CoderResult.OVERFLOW) {
+            drainBytes();
+        }
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private SimpleDateFormat dateFormat(int col) {
+        String pattern = formats != null && formats[col] != null ? formats[col] : options.getDatePattern();
+        SimpleDateFormat format = dateFormats.get(pattern);
+        if (format == null) {
+            format = new SimpleDateFormat(pattern);
+            dateFormats.put(pattern, format);
+        }
+        return format;
+    }
+}
@@ -0,0 +1,161 @@
+package com.ccr.common.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description 业务主键（复合主键）查重索引：每行只需计算一次整行主键的哈希，查重为线性时间。
+ * 普通模式下用HashMap保存完整的主键；紧凑模式下只保存主键的64位指纹和行号（开放寻址的基本类型数组），
+ * 指纹相同时再比较第二个独立的64位指纹确认。
+ */
+class DuplicateKeyIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final boolean compact;
+
+    private final List<int[]> duplicates = new ArrayList<int[]>();
+
+    /**
+     * 普通模式：完整主键 -> 首次出现的行号
+     */
+    private Map<List<String>, Integer> exactKeys;
+
+    /**
+     * 紧凑模式：开放寻址表，rows为0表示空槽
+     */
+    private long[] fingerprints;
+
+    private long[] checkFingerprints;
+
+    private int[] rows;
+
+    private int size;
+
+    /**
+     * @param compact 是否使用紧凑模式
+     */
+    DuplicateKeyIndex(boolean compact) {
+        this.compact = compact;
+        if (compact) {
+            fingerprints = new long[INITIAL_CAPACITY];
+            checkFingerprints = new long[INITIAL_CAPACITY];
+            rows = new int[INITIAL_CAPACITY];
+        } else {
+            exactKeys = new HashMap<List<String>, Integer>();
+        }
+    }
+
+    /**
+     * @param key   该行的主键，普通模式下会被索引持有，调用方不能再修改
+     * @param rowNo 行号（从1开始）
+     * @return 与之重复的、先出现的行号；不重复时返回-1
+     * @MethodName : add
+     * @Description : 把一行的主键加入索引，如有重复则记录下来
+     */
+    int add(String[] key, int rowNo) {
+        int sameRow = compact ? addCompact(key, rowNo) : addExact(key, rowNo);
+        if (sameRow > 0) {
+            duplicates.add(new int[]{sameRow, rowNo});
+        }
+        return sameRow;
+    }
+
+    /**
+     * @return 是否有重复行
+     */
+    boolean hasDuplicates() {
+        return !duplicates.isEmpty();
+    }
+
+    /**
+     * @return 所有重复行，每个元素为{先出现的行号, 重复的行号}
+     */
+    List<int[]> getDuplicates() {
+        return duplicates;
+    }
+
+    private int addExact(String[] key, int rowNo) {
+        Integer sameRow = exactKeys.get(Arrays.asList(key));
+        if (sameRow != null) {
+            return sameRow;
+        }
+        exactKeys.put(Arrays.asList(key), rowNo);
+        return -1;
+    }
+
+    private int addCompact(String[] key, int rowNo) {
+        if ((size + 1) * 2 > rows.length) {
+            resize();
+        }
+        long fingerprint = fingerprint(key, 0xcbf29ce484222325L, 0x100000001b3L);
+        long checkFingerprint = fingerprint(key, 0x9e3779b97f4a7c15L, 0xbf58476d1ce4e5b9L);
+        int mask = rows.length - 1;
+        int slot = (int) mix(fingerprint) & mask;
+        while (rows[slot] != 0) {
+            if (fingerprints[slot] == fingerprint && checkFingerprints[slot] == checkFingerprint) {
+                return rows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        fingerprints[slot] = fingerprint;
+        checkFingerprints[slot] = checkFingerprint;
+        rows[slot] = rowNo;
+        size++;
+        return -1;
+    }
+
+    private void resize() {
+        long[] oldFingerprints = fingerprints;
+        long[] oldCheckFingerprints = checkFingerprints;
+        int[] oldRows = rows;
+        int capacity = oldRows.length * 2;
+        fingerprints = new long[capacity];
+        checkFingerprints = new long[capacity];
+        rows = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldRows.length; i++) {
+            if (oldRows[i] == 0) {
+                continue;
+            }
+            int slot = (int) mix(oldFingerprints[i]) & mask;
+            while (rows[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            fingerprints[slot] = oldFingerprints[i];
+            checkFingerprints[slot] = oldCheckFingerprints[i];
+            rows[slot] = oldRows[i];
+        }
+    }
+
+    /**
+     * @MethodName : fingerprint
+     * @Description : 计算整行主键的64位指纹（FNV-1a形式，种子和乘数不同即得到两个独立的指纹），
+     * 各列之间加入长度，避免 {"ab","c"} 与 {"a","bc"} 相同
+     */
+    private static long fingerprint(String[] key, long seed, long prime) {
+        long h = seed;
+        for (String part : key) {
+            int length = part.length();
+            for (int i = 0; i < length; i++) {
+                h ^= part.charAt(i);
+                h *= prime;
+            }
+            h ^= length;
+            h *= prime;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
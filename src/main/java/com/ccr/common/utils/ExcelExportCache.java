@@ -0,0 +1,518 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @Description 导出结果缓存，用于同一份数据被反复导出的场景（如多人同时下载同一张报表）。
+ * 缓存键由调用方提供的数据版本和fieldMap、工作表名称、影响文件内容的导出选项计算摘要得到，
+ * 数据变化时调用方更换数据版本即可，旧的结果按LRU和过期时间淘汰。
+ * 生成好的文件保存在有大小上限的内存中，可选再保存到磁盘目录（磁盘上的结果通过FileChannel.transferTo写出）；
+ * 同一个键同时只生成一次，其余请求等待并共用生成结果。
+ * 模板按解析时分配的编号区分，重新解析的模板视为不同的选项。磁盘目录应只由一个缓存实例使用。
+ */
+public class ExcelExportCache {
+
+    /**
+     * 磁盘缓存文件的扩展名
+     */
+    private static final String FILE_SUFFIX = ".cache";
+
+    private final long maxMemoryBytes;
+
+    private final long ttlMillis;
+
+    private final File directory;
+
+    private final long maxDiskBytes;
+
+    /**
+     * 内存中的结果，按访问顺序排列，最久未访问的在前
+     */
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    /**
+     * 磁盘上的结果，按访问顺序排列
+     */
+    private final LinkedHashMap<String, Entry> disk = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private long memoryBytes;
+
+    private long diskBytes;
+
+    /**
+     * 正在生成的结果，同一个键的其余请求等待它完成
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> building = new ConcurrentHashMap<String, CompletableFuture<Entry>>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param maxMemoryBytes 内存中保存的结果的总字节数上限
+     * @param ttlMillis      结果的有效期（毫秒），小于等于0表示不过期
+     */
+    public ExcelExportCache(long maxMemoryBytes, long ttlMillis) {
+        this(maxMemoryBytes, ttlMillis, null, 0);
+    }
+
+    /**
+     * @param maxMemoryBytes 内存中保存的结果的总字节数上限
+     * @param ttlMillis      结果的有效期（毫秒），小于等于0表示不过期
+     * @param directory      磁盘缓存目录，为null时只缓存在内存中；创建时清除目录中以往留下的缓存文件
+     * @param maxDiskBytes   磁盘上保存的结果的总字节数上限
+     */
+    public ExcelExportCache(long maxMemoryBytes, long ttlMillis, File directory, long maxDiskBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.ttlMillis = ttlMillis;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        if (directory != null) {
+            directory.mkdirs();
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(FILE_SUFFIX)) {
+                        file.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param dataVersion 数据版本，数据变化时必须更换
+     * @param list        数据源，命中缓存时不会被读取
+     * @param fieldMap    类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName   工作表的名称
+     * @param sheetSize   每个工作表中记录的最大个数
+     * @param options     导出选项
+     * @param os          导出流
+     * @throws ExcelException
+     * @MethodName : listToExcel
+     * @Description : 导出Excel（导出到本地文件中），相同数据版本和选项的结果只生成一次
+     */
+    public <T> void listToExcel(String dataVersion, final List<T> list, final LinkedHashMap<String, String> fieldMap, final String sheetName, final int sheetSize,
+                                final ExportOptions options, OutputStream os) throws ExcelException {
+        export(keyOf(dataVersion, fieldMap, sheetName, sheetSize, options), new AsyncExcelExport.ExportTask() {
+            @Override
+            public void export(OutputStream os) throws Exception {
+                ExcelUtils.listToExcel(list, fieldMap, sheetName, sheetSize, options, os);
+            }
+        }, os);
+    }
+
+    /**
+     * @param dataVersion 数据版本，数据变化时必须更换
+     * @param list        数据源，命中缓存时不会被读取
+     * @param fieldMap    类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName   工作表的名称
+     * @param sheetSize   每个工作表中记录的最大个数
+     * @param options     导出选项
+     * @param response    使用response可以导出到浏览器
+     * @throws ExcelException 生成失败时抛出，此时response尚未提交
+     * @MethodName : listToExcel
+     * @Description : 导出Excel（导出到浏览器），同时设置Content-Length
+     */
+    public <T> void listToExcel(String dataVersion, final List<T> list, final LinkedHashMap<String, String> fieldMap, final String sheetName, final int sheetSize,
+                                final ExportOptions options, HttpServletResponse response) throws ExcelException {
+        export(keyOf(dataVersion, fieldMap, sheetName, sheetSize, options), new AsyncExcelExport.ExportTask() {
+            @Override
+            public void export(OutputStream os) throws Exception {
+                ExcelUtils.listToExcel(list, fieldMap, sheetName, sheetSize, options, os);
+            }
+        }, options, response);
+    }
+
+    /**
+     * @param dataVersion 数据版本，数据变化时必须更换
+     * @param source      数据源，只在未命中缓存需要生成时才调用，适合从数据库查询数据
+     * @param fieldMap    类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName   工作表的名称
+     * @param sheetSize   每个工作表中记录的最大个数
+     * @param options     导出选项
+     * @param os          导出流
+     * @throws ExcelException
+     * @MethodName : iteratorToExcel
+     * @Description : 导出Excel（导出到本地文件中，未命中缓存时才拉取数据）
+     */
+    public <T> void iteratorToExcel(String dataVersion, final Supplier<Iterator<T>> source, final LinkedHashMap<String, String> fieldMap, final String sheetName, final int sheetSize,
+                                    final ExportOptions options, OutputStream os) throws ExcelException {
+        export(keyOf(dataVersion, fieldMap, sheetName, sheetSize, options), new AsyncExcelExport.ExportTask() {
+            @Override
+            public void export(OutputStream os) throws Exception {
+                ExcelUtils.iteratorToExcel(source.get(), fieldMap, sheetName, sheetSize, options, os);
+            }
+        }, os);
+    }
+
+    /**
+     * @param dataVersion 数据版本，数据变化时必须更换
+     * @param source      数据源，只在未命中缓存需要生成时才调用，适合从数据库查询数据
+     * @param fieldMap    类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName   工作表的名称
+     * @param sheetSize   每个工作表中记录的最大个数
+     * @param options     导出选项
+     * @param response    使用response可以导出到浏览器
+     * @throws ExcelException 生成失败时抛出，此时response尚未提交
+     * @MethodName : iteratorToExcel
+     * @Description : 导出Excel（导出到浏览器，未命中缓存时才拉取数据），同时设置Content-Length
+     */
+    public <T> void iteratorToExcel(String dataVersion, final Supplier<Iterator<T>> source, final LinkedHashMap<String, String> fieldMap, final String sheetName, final int sheetSize,
+                                    final ExportOptions options, HttpServletResponse response) throws ExcelException {
+        export(keyOf(dataVersion, fieldMap, sheetName, sheetSize, options), new AsyncExcelExport.ExportTask() {
+            @Override
+            public void export(OutputStream os) throws Exception {
+                ExcelUtils.iteratorToExcel(source.get(), fieldMap, sheetName, sheetSize, options, os);
+            }
+        }, options, response);
+    }
+
+    /**
+     * @MethodName : clear
+     * @Description : 清空缓存，删除磁盘上的缓存文件
+     */
+    public synchronized void clear() {
+        memory.clear();
+        memoryBytes = 0;
+        for (Entry entry : disk.values()) {
+            entry.file.delete();
+        }
+        disk.clear();
+        diskBytes = 0;
+    }
+
+    /**
+     * @return 命中缓存（包括等待其他请求生成）的次数
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return 未命中缓存、重新生成的次数
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private void export(String key, AsyncExcelExport.ExportTask task, OutputStream os) throws ExcelException {
+        try {
+            // 等待期间磁盘上的结果可能被淘汰，此时重新获取
+            Entry entry;
+            do {
+                entry = get(key, task);
+            } while (!transfer(entry, os));
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new ExcelException("导出Excel失败");
+        }
+    }
+
+    private void export(String key, AsyncExcelExport.ExportTask task, ExportOptions options, HttpServletResponse response) throws ExcelException {
+        try {
+            while (true) {
+                Entry entry = get(key, task);
+                // 生成成功后才设置响应头，失败时调用方仍然可以返回错误页面
+                ExcelUtils.prepareResponse(response, options.getFormat());
+                response.setContentLengthLong(entry.size);
+                if (transfer(entry, response.getOutputStream())) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new ExcelException("导出excel失败");
+        }
+    }
+
+    /**
+     * @param key  缓存键
+     * @param task 生成文件的任务
+     * @return 缓存中的或新生成的结果
+     * @throws ExcelException 生成失败时抛出，等待同一次生成的请求抛出相同的异常
+     * @MethodName : get
+     * @Description : 查找结果，未命中时生成；同一个键同时只有一个请求生成，其余请求等待
+     */
+    private Entry get(String key, AsyncExcelExport.ExportTask task) throws ExcelException {
+        Entry entry = lookup(key);
+        if (entry != null) {
+            hitCount.incrementAndGet();
+            return entry;
+        }
+        CompletableFuture<Entry> future = new CompletableFuture<Entry>();
+        CompletableFuture<Entry> existing = building.putIfAbsent(key, future);
+        if (existing != null) {
+            hitCount.incrementAndGet();
+            return await(existing);
+        }
+        try {
+            // 上一次生成可能刚好在查找之后完成
+            entry = lookup(key);
+            if (entry != null) {
+                hitCount.incrementAndGet();
+            } else {
+                missCount.incrementAndGet();
+                entry = build(key, task);
+                store(key, entry);
+            }
+            future.complete(entry);
+            return entry;
+        } catch (ExcelException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            building.remove(key, future);
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> future) throws ExcelException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelException("等待导出被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ExcelException) {
+                throw (ExcelException) e.getCause();
+            }
+            throw new ExcelException("导出Excel失败", e.getCause());
+        }
+    }
+
+    /**
+     * @param key  缓存键
+     * @param task 生成文件的任务
+     * @return 生成的结果。有磁盘缓存时文件直接生成到磁盘上，不超过内存上限时再读入内存
+     * @throws ExcelException
+     */
+    private Entry build(String key, AsyncExcelExport.ExportTask task) throws ExcelException {
+        try {
+            if (directory == null) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                task.export(bos);
+                return new Entry(bos.toByteArray(), null, bos.size(), expiresAt());
+            }
+            File temp = File.createTempFile("export", ".tmp", directory);
+            try {
+                FileOutputStream fos = new FileOutputStream(temp);
+                try {
+                    task.export(fos);
+                } finally {
+                    fos.close();
+                }
+                File file = new File(directory, key + FILE_SUFFIX);
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                long size = file.length();
+                byte[] bytes = size <= maxMemoryBytes ? Files.readAllBytes(file.toPath()) : null;
+                return new Entry(bytes, file, size, expiresAt());
+            } finally {
+                temp.delete();
+            }
+        } catch (ExcelException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new ExcelException("导出Excel失败");
+        }
+    }
+
+    /**
+     * @return 从现在（生成完成时）开始计算的过期时间
+     */
+    private long expiresAt() {
+        return ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+    }
+
+    private synchronized Entry lookup(String key) {
+        long now = System.currentTimeMillis();
+        Entry entry = memory.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > now) {
+                return entry;
+            }
+            memory.remove(key);
+            memoryBytes -= entry.size;
+        }
+        entry = disk.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > now) {
+                return entry;
+            }
+            disk.remove(key);
+            diskBytes -= entry.size;
+            entry.file.delete();
+        }
+        return null;
+    }
+
+    /**
+     * @MethodName : store
+     * @Description : 保存新生成的结果，先淘汰最久未访问的结果腾出空间；最新的结果至少保留到下一次保存
+     */
+    private synchronized void store(String key, Entry entry) {
+        if (entry.bytes != null && entry.size <= maxMemoryBytes) {
+            evict(memory, maxMemoryBytes - entry.size);
+            Entry old = memory.put(key, new Entry(entry.bytes, null, entry.size, entry.expiresAt));
+            memoryBytes += entry.size - (old != null ? old.size : 0);
+        }
+        if (entry.file != null) {
+            evict(disk, maxDiskBytes - entry.size);
+            Entry old = disk.put(key, new Entry(null, entry.file, entry.size, entry.expiresAt));
+            diskBytes += entry.size - (old != null ? old.size : 0);
+        }
+    }
+
+    private void evict(LinkedHashMap<String, Entry> entries, long target) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries == memory ? memoryBytes : diskBytes) > target && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            if (entries == memory) {
+                memoryBytes -= eldest.size;
+            } else {
+                diskBytes -= eldest.size;
+                // 正在写出的请求已经打开了文件，删除后仍然可以读完（Windows上删除失败时文件留到被覆盖）
+                eldest.file.delete();
+            }
+        }
+    }
+
+    /**
+     * @param entry 结果
+     * @param os    目标流
+     * @return 是否已写出，磁盘上的文件已被淘汰时返回false
+     * @throws IOException
+     * @MethodName : transfer
+     * @Description : 写出结果。磁盘上的结果通过FileChannel.transferTo写出，目标是本地文件时由操作系统直接复制
+     */
+    private static boolean transfer(Entry entry, OutputStream os) throws IOException {
+        if (entry.bytes != null) {
+            os.write(entry.bytes);
+            os.flush();
+            return true;
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(entry.file.toPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        try {
+            WritableByteChannel target = os instanceof FileOutputStream
+                    ? ((FileOutputStream) os).getChannel() : Channels.newChannel(os);
+            long position = 0;
+            while (position < entry.size) {
+                position += channel.transferTo(position, entry.size - position, target);
+            }
+        } finally {
+            channel.close();
+        }
+        os.flush();
+        return true;
+    }
+
+    /**
+     * @return 数据版本、列、工作表和影响文件内容的导出选项的SHA-256摘要（十六进制）
+     * @throws ExcelException 数据版本为空时抛出
+     * @MethodName : keyOf
+     * @Description : 计算缓存键。行窗口大小决定xlsx按FULL方式计算列宽时参考的行数，也参与计算；
+     * 并行、异步、xls临时文件、统计等只影响生成过程、不影响文件内容的选项不参与计算
+     */
+    static String keyOf(String dataVersion, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, ExportOptions options) throws ExcelException {
+        if (dataVersion == null) {
+            throw new ExcelException("缓存导出需要指定数据版本");
+        }
+        StringBuilder sb = new StringBuilder();
+        append(sb, dataVersion);
+        for (Map.Entry<String, String> field : fieldMap.entrySet()) {
+            append(sb, field.getKey());
+            append(sb, field.getValue());
+        }
+        append(sb, sheetName);
+        append(sb, sheetSize);
+        append(sb, options.getFormat());
+        append(sb, options.getRowWindowSize());
+        append(sb, options.getColumnWidthMode());
+        append(sb, options.getColumnWidthSampleRows());
+        append(sb, options.isTypedCells());
+        append(sb, options.getDatePattern());
+        if (options.getColumnFormats() != null) {
+            append(sb, new TreeMap<String, String>(options.getColumnFormats()));
+        }
+        append(sb, options.getTemplate() != null ? options.getTemplate().getId() : null);
+        append(sb, options.getCharset());
+        append(sb, options.isWriteBom());
+        append(sb, options.getSharedStringsLimit());
+        append(sb, options.getSharedStringsSampleRows());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new ExcelException("计算缓存键失败", e);
+        }
+    }
+
+    /**
+     * 每个值前加上长度，避免不同的值拼接后相同
+     */
+    private static void append(StringBuilder sb, Object value) {
+        String text = String.valueOf(value);
+        sb.append(text.length()).append(':').append(text);
+    }
+
+    /**
+     * 缓存的结果，内存中的只有bytes，磁盘上的只有file，刚生成的结果可能两者都有
+     */
+    private static final class Entry {
+
+        final byte[] bytes;
+
+        final File file;
+
+        final long size;
+
+        final long expiresAt;
+
+        Entry(byte[] bytes, File file, long size, long expiresAt) {
+            this.bytes = bytes;
+            this.file = file;
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
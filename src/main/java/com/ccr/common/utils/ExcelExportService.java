@@ -0,0 +1,251 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description 有并发上限的导出服务，供高并发的报表接口使用，通常在应用中创建一个实例共享。
+ * 同时生成的文件个数不超过maxConcurrent，其余请求按到达顺序排队，排队的请求超过maxWaiting个时直接拒绝，
+ * 等待超过waitTimeoutMillis时放弃。每个导出在一个池化复用的缓冲区中生成文件：
+ * 文件的前heapBufferSize个字节放在堆内，超出的部分经由直接缓冲区写入临时文件，
+ * 生成成功后再写出到目标流，因此导出占用的缓冲区内存不超过 maxConcurrent×heapBufferSize，与文件大小无关。
+ * xls格式建议同时开启ExportOptions.setXlsTempFile(true)，让JXL不在堆内组装整个文件。
+ */
+public class ExcelExportService {
+
+    /**
+     * 默认的堆内缓冲区大小
+     */
+    private static final int DEFAULT_HEAP_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 写入临时文件时直接缓冲区的大小
+     */
+    private static final int DIRECT_BUFFER_SIZE = 64 * 1024;
+
+    private final int maxConcurrent;
+
+    private final int maxWaiting;
+
+    private final long waitTimeoutMillis;
+
+    private final int heapBufferSize;
+
+    private final File tempDirectory;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * 空闲的缓冲区，按需创建，最多maxConcurrent个
+     */
+    private final BlockingQueue<SpillOutputStream> buffers;
+
+    /**
+     * @param maxConcurrent 同时生成的文件个数上限
+     */
+    public ExcelExportService(int maxConcurrent) {
+        this(maxConcurrent, maxConcurrent * 10, 60 * 1000L, DEFAULT_HEAP_BUFFER_SIZE, null);
+    }
+
+    /**
+     * @param maxConcurrent     同时生成的文件个数上限
+     * @param maxWaiting        排队等待的请求个数上限，超出时直接拒绝
+     * @param waitTimeoutMillis 排队等待的超时时间（毫秒）
+     * @param heapBufferSize    每个缓冲区放在堆内的字节数，超出的部分写入临时文件
+     * @param tempDirectory     临时文件所在的目录，为null时使用系统临时目录
+     */
+    public ExcelExportService(int maxConcurrent, int maxWaiting, long waitTimeoutMillis, int heapBufferSize, File tempDirectory) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent必须大于0");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = Math.max(maxWaiting, 0);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.heapBufferSize = Math.max(heapBufferSize, DIRECT_BUFFER_SIZE);
+        this.tempDirectory = tempDirectory;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.buffers = new ArrayBlockingQueue<SpillOutputStream>(maxConcurrent);
+    }
+
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项
+     * @param os        导出流，文件全部生成后才开始写入
+     * @throws ExcelException 排队已满、等待超时或导出失败时抛出
+     * @MethodName : listToExcel
+     * @Description : 导出Excel（导出到本地文件中）
+     */
+    public <T> void listToExcel(final List<T> list, final LinkedHashMap<String, String> fieldMap, final String sheetName, final int sheetSize,
+                                final ExportOptions options, OutputStream os) throws ExcelException {
+        export(new AsyncExcelExport.ExportTask() {
+            @Override
+            public void export(OutputStream os) throws Exception {
+                ExcelUtils.listToExcel(list, fieldMap, sheetName, sheetSize, options, os);
+            }
+        }, os);
+    }
+
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项
+     * @param response  使用response可以导出到浏览器
+     * @throws ExcelException 排队已满、等待超时或导出失败时抛出，此时response尚未提交
+     * @MethodName : listToExcel
+     * @Description : 导出Excel（导出到浏览器）。文件生成成功后才设置响应头并写出，同时设置Content-Length
+     */
+    public <T> void listToExcel(final List<T> list, final LinkedHashMap<String, String> fieldMap, final String sheetName, final int sheetSize,
+                                final ExportOptions options, HttpServletResponse response) throws ExcelException {
+        export(new AsyncExcelExport.ExportTask() {
+            @Override
+            public void export(OutputStream os) throws Exception {
+                ExcelUtils.listToExcel(list, fieldMap, sheetName, sheetSize, options, os);
+            }
+        }, options, response);
+    }
+
+    /**
+     * @param iterator  数据源，在获得导出许可后才开始遍历
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项
+     * @param os        导出流，文件全部生成后才开始写入
+     * @throws ExcelException 排队已满、等待超时或导出失败时抛出
+     * @MethodName : iteratorToExcel
+     * @Description : 导出Excel（导出到本地文件中，数据按需拉取）
+     */
+    public <T> void iteratorToExcel(final Iterator<T> iterator, final LinkedHashMap<String, String> fieldMap, final String sheetName, final int sheetSize,
+                                    final ExportOptions options, OutputStream os) throws ExcelException {
+        export(new AsyncExcelExport.ExportTask() {
+            @Override
+            public void export(OutputStream os) throws Exception {
+                ExcelUtils.iteratorToExcel(iterator, fieldMap, sheetName, sheetSize, options, os);
+            }
+        }, os);
+    }
+
+    /**
+     * @param iterator  数据源，在获得导出许可后才开始遍历
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项
+     * @param response  使用response可以导出到浏览器
+     * @throws ExcelException 排队已满、等待超时或导出失败时抛出，此时response尚未提交
+     * @MethodName : iteratorToExcel
+     * @Description : 导出Excel（导出到浏览器，数据按需拉取）
+     */
+    public <T> void iteratorToExcel(final Iterator<T> iterator, final LinkedHashMap<String, String> fieldMap, final String sheetName, final int sheetSize,
+                                    final ExportOptions options, HttpServletResponse response) throws ExcelException {
+        export(new AsyncExcelExport.ExportTask() {
+            @Override
+            public void export(OutputStream os) throws Exception {
+                ExcelUtils.iteratorToExcel(iterator, fieldMap, sheetName, sheetSize, options, os);
+            }
+        }, options, response);
+    }
+
+    /**
+     * @return 正在生成的导出个数
+     */
+    public int getActiveExports() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return 排队等待的导出个数
+     */
+    public int getWaitingExports() {
+        return waiting.get();
+    }
+
+    private void export(AsyncExcelExport.ExportTask task, OutputStream os) throws ExcelException {
+        SpillOutputStream buffer = acquire();
+        try {
+            task.export(buffer);
+            buffer.writeTo(os);
+        } catch (ExcelException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new ExcelException("导出Excel失败");
+        } finally {
+            release(buffer);
+        }
+    }
+
+    private void export(AsyncExcelExport.ExportTask task, ExportOptions options, HttpServletResponse response) throws ExcelException {
+        SpillOutputStream buffer = acquire();
+        try {
+            task.export(buffer);
+            // 生成成功后才设置响应头，失败时调用方仍然可以返回错误页面
+            ExcelUtils.prepareResponse(response, options.getFormat());
+            response.setContentLengthLong(buffer.size());
+            buffer.writeTo(response.getOutputStream());
+        } catch (ExcelException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new ExcelException("导出excel失败");
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * @return 获得导出许可后分配的缓冲区
+     * @throws ExcelException 排队已满、等待超时或等待被中断时抛出
+     * @MethodName : acquire
+     * @Description : 获得导出许可，没有空闲许可时按到达顺序排队
+     */
+    private SpillOutputStream acquire() throws ExcelException {
+        try {
+            // 带超时的tryAcquire遵守公平顺序，不会插到排队的请求前面
+            if (!permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                if (waiting.incrementAndGet() > maxWaiting) {
+                    waiting.decrementAndGet();
+                    throw new ExcelException("导出任务过多，请稍后再试");
+                }
+                try {
+                    if (!permits.tryAcquire(waitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        throw new ExcelException("等待导出超时，请稍后再试");
+                    }
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelException("等待导出被中断", e);
+        }
+        // 持有许可的导出不超过maxConcurrent个，缓冲区也最多创建这么多个
+        SpillOutputStream buffer = buffers.poll();
+        return buffer != null ? buffer : new SpillOutputStream(heapBufferSize, DIRECT_BUFFER_SIZE, tempDirectory);
+    }
+
+    private void release(SpillOutputStream buffer) {
+        buffer.reset();
+        buffers.offer(buffer);
+        permits.release();
+    }
+}
@@ -0,0 +1,77 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 导入导出文件的格式
+ */
+public enum ExcelFormat {
+
+    /**
+     * Excel 97-2003 二进制格式，基于JXL，整个工作簿在内存中生成后一次性写出
+     */
+    XLS("xls", "application/vnd.ms-excel", 65535, (char) 0),
+
+    /**
+     * Excel 2007及以上的OOXML格式，工作表数据边生成边写入压缩流，内存占用与行数无关
+     */
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", 1048575, (char) 0),
+
+    /**
+     * 逗号分隔的文本（RFC 4180），只有一个“工作表”，行数不限
+     */
+    CSV("csv", "text/csv", Integer.MAX_VALUE, ','),
+
+    /**
+     * 制表符分隔的文本，引号规则与CSV相同
+     */
+    TSV("tsv", "text/tab-separated-values", Integer.MAX_VALUE, '\t');
+
+    private final String extension;
+
+    private final String contentType;
+
+    private final int maxSheetSize;
+
+    private final char delimiter;
+
+    ExcelFormat(String extension, String contentType, int maxSheetSize, char delimiter) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.maxSheetSize = maxSheetSize;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @return 文件扩展名（不含点）
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return 导出到浏览器时使用的Content-Type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return 每个工作表最多能存放的记录数（除去列头）
+     */
+    public int getMaxSheetSize() {
+        return maxSheetSize;
+    }
+
+    /**
+     * @return 是否为分隔符文本格式（CSV、TSV）
+     */
+    public boolean isDelimited() {
+        return delimiter != 0;
+    }
+
+    /**
+     * @return 分隔符文本格式的字段分隔符
+     */
+    char getDelimiter() {
+        return delimiter;
+    }
+}
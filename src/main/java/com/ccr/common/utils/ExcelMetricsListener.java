@@ -0,0 +1,24 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 导入导出的统计监听器，每次导入或导出成功结束后收到一份统计报告，
+ * 可以把报告转给自己的监控系统。通过ExportOptions/ImportOptions.setMetricsListener设置。
+ * 默认的NONE不做任何统计：不计时、不包装输入输出流，没有额外开销。
+ * 监听器会被多个线程同时调用，实现类必须是线程安全的；监听器抛出的异常不会影响导入导出。
+ */
+public interface ExcelMetricsListener {
+
+    /**
+     * 不做统计的监听器（默认）
+     */
+    ExcelMetricsListener NONE = new ExcelMetricsListener() {
+        @Override
+        public void onComplete(ExcelMetricsReport report) {
+        }
+    };
+
+    /**
+     * @param report 本次导入或导出的统计报告
+     */
+    void onComplete(ExcelMetricsReport report);
+}
@@ -0,0 +1,110 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 一次导入或导出的统计报告：各阶段耗时、行数、读写的字节数以及可选的本线程分配内存
+ */
+public final class ExcelMetricsReport {
+
+    /**
+     * 操作类型
+     */
+    public enum Operation {
+        EXPORT, IMPORT
+    }
+
+    private final Operation operation;
+
+    private final String sheetName;
+
+    private final long rows;
+
+    private final long bytes;
+
+    private final long elapsedNanos;
+
+    private final long[] phaseNanos;
+
+    private final long allocatedBytes;
+
+    ExcelMetricsReport(Operation operation, String sheetName, long rows, long bytes, long elapsedNanos,
+                       long[] phaseNanos, long allocatedBytes) {
+        this.operation = operation;
+        this.sheetName = sheetName;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+        this.phaseNanos = phaseNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    /**
+     * @return 导出的行数，或导入得到的对象数
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return 导出时写出的字节数，导入时读取的字节数
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return 总耗时（纳秒）
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @param phase 阶段
+     * @return 该阶段的耗时（纳秒），不属于本次操作的阶段为0
+     */
+    public long getPhaseNanos(ExcelPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return 本次操作在调用线程中分配的内存字节数（不包括线程池中并行转换的部分），
+     * 没有开启统计或JVM不支持时返回-1
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return 每秒处理的行数
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rows * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(operation).append('[').append(sheetName).append("] rows=").append(rows)
+                .append(" bytes=").append(bytes)
+                .append(" elapsed=").append(elapsedNanos / 1000000).append("ms")
+                .append(" rows/s=").append((long) getRowsPerSecond());
+        for (ExcelPhase phase : ExcelPhase.values()) {
+            long nanos = phaseNanos[phase.ordinal()];
+            if (nanos > 0) {
+                builder.append(' ').append(phase).append('=').append(nanos / 1000000).append("ms");
+            }
+        }
+        if (allocatedBytes >= 0) {
+            builder.append(" allocated=").append(allocatedBytes);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 导入导出过程中分别计时的阶段
+ */
+public enum ExcelPhase {
+
+    /**
+     * 导出：取出对象的属性值并写入单元格（包括列宽跟踪）
+     */
+    FILL,
+
+    /**
+     * 导出：结束工作表，设置列宽（xlsx还包括写出缓冲区中剩余的行）
+     */
+    AUTOSIZE,
+
+    /**
+     * 导出：生成并写出工作簿（xls在此阶段才真正写出整个文件）
+     */
+    SERIALIZE,
+
+    /**
+     * 导入：读取文件、解析单元格
+     */
+    PARSE,
+
+    /**
+     * 导入：检查列头和业务主键
+     */
+    VALIDATE,
+
+    /**
+     * 导入：创建对象并给字段赋值
+     */
+    BIND
+}
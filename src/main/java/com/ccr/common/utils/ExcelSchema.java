@@ -0,0 +1,315 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.annotation.ExcelColumn;
+import com.ccr.common.exception.ExcelException;
+import com.ccr.common.exception.InvalidCellException;
+
+import java.lang.reflect.Field;
+import java.text.ParsePosition;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Description 实体类的列结构：各列的英文属性名、中文列名、单元格格式和列宽。
+ * 根据字段上的@ExcelColumn注解解析一次后缓存，不可修改，多线程共享；
+ * 同一类型重复导入导出时不再解析注解、构造fieldMap。
+ * 可以在应用启动时调用warmUp预先解析，同时准备好取值计划和赋值计划，避免第一次导入导出的延迟。
+ */
+public final class ExcelSchema {
+
+    private static final ConcurrentMap<Class<?>, ExcelSchema> CACHE = new ConcurrentHashMap<Class<?>, ExcelSchema>();
+
+    private final Class<?> type;
+
+    private final String[] fieldNames;
+
+    private final String[] headers;
+
+    private final String[] formats;
+
+    private final int[] widths;
+
+    private final LinkedHashMap<String, String> fieldMap;
+
+    /**
+     * 按格式解析日期字段的转换器（英文属性名 -> 转换器）
+     */
+    private final Map<String, CellConverter<?>> converters;
+
+    /**
+     * 使用列结构中转换器的赋值计划，第一次导入时编译
+     */
+    private volatile CachedPlan binderPlan;
+
+    private ExcelSchema(Class<?> type, String[] fieldNames, String[] headers, String[] formats, int[] widths,
+                        Map<String, CellConverter<?>> converters) {
+        this.type = type;
+        this.fieldNames = fieldNames;
+        this.headers = headers;
+        this.formats = formats;
+        this.widths = widths;
+        this.converters = converters;
+        this.fieldMap = new LinkedHashMap<String, String>();
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldMap.put(fieldNames[i], headers[i]);
+        }
+    }
+
+    /**
+     * @param type 标注了@ExcelColumn的实体类
+     * @return 该类的列结构
+     * @throws ExcelException 类中没有标注@ExcelColumn的字段时抛出
+     * @MethodName : of
+     * @Description : 获取（必要时解析并缓存）实体类的列结构
+     */
+    public static ExcelSchema of(Class<?> type) throws ExcelException {
+        ExcelSchema schema = CACHE.get(type);
+        if (schema == null) {
+            schema = compile(type);
+            ExcelSchema existing = CACHE.putIfAbsent(type, schema);
+            if (existing != null) {
+                schema = existing;
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * @param types 标注了@ExcelColumn的实体类
+     * @throws ExcelException
+     * @MethodName : warmUp
+     * @Description : 预先解析列结构，并准备好导出的取值计划和导入的赋值计划
+     */
+    public static void warmUp(Class<?>... types) throws ExcelException {
+        for (Class<?> type : types) {
+            ExcelSchema schema = of(type);
+            RowAccessorPlan.of(type, schema.fieldNames);
+            schema.binderPlan(type, new ImportOptions());
+        }
+    }
+
+    /**
+     * @param fieldMap 英文属性名和中文列名的对应关系
+     * @return 与fieldMap对应的列结构（没有格式和列宽），不进入缓存
+     */
+    static ExcelSchema of(LinkedHashMap<String, String> fieldMap) {
+        int size = fieldMap.size();
+        String[] fieldNames = new String[size];
+        String[] headers = new String[size];
+        int count = 0;
+        for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
+            fieldNames[count] = entry.getKey();
+            headers[count] = entry.getValue();
+            count++;
+        }
+        Map<String, CellConverter<?>> none = Collections.emptyMap();
+        return new ExcelSchema(null, fieldNames, headers, new String[size], new int[size], none);
+    }
+
+    private static ExcelSchema compile(Class<?> type) throws ExcelException {
+        // 父类的字段在前，同一个类中按声明顺序
+        List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.isAnnotationPresent(ExcelColumn.class)) {
+                    fields.add(field);
+                }
+            }
+        }
+        if (fields.isEmpty()) {
+            throw new ExcelException(type.getSimpleName() + "类中没有标注@ExcelColumn的字段");
+        }
+        // 稳定排序，order相同时保持声明顺序
+        Collections.sort(fields, new Comparator<Field>() {
+            @Override
+            public int compare(Field f1, Field f2) {
+                return Integer.compare(f1.getAnnotation(ExcelColumn.class).order(), f2.getAnnotation(ExcelColumn.class).order());
+            }
+        });
+
+        int size = fields.size();
+        String[] fieldNames = new String[size];
+        String[] headers = new String[size];
+        String[] formats = new String[size];
+        int[] widths = new int[size];
+        Map<String, CellConverter<?>> converters = new HashMap<String, CellConverter<?>>();
+        for (int i = 0; i < size; i++) {
+            Field field = fields.get(i);
+            ExcelColumn column = field.getAnnotation(ExcelColumn.class);
+            fieldNames[i] = field.getName();
+            headers[i] = column.name();
+            formats[i] = column.format().length() > 0 ? column.format() : null;
+            widths[i] = Math.max(column.width(), 0);
+            if (formats[i] != null && field.getType() == Date.class) {
+                converters.put(field.getName(), new DateConverter(formats[i]));
+            }
+        }
+        return new ExcelSchema(type, fieldNames, headers, formats, widths, Collections.unmodifiableMap(converters));
+    }
+
+    /**
+     * @return 实体类，由fieldMap得到的列结构返回null
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return 列数
+     */
+    public int size() {
+        return fieldNames.length;
+    }
+
+    /**
+     * @param col 列号
+     * @return 该列的英文属性名
+     */
+    public String getFieldName(int col) {
+        return fieldNames[col];
+    }
+
+    /**
+     * @param col 列号
+     * @return 该列的中文列名
+     */
+    public String getHeader(int col) {
+        return headers[col];
+    }
+
+    /**
+     * @param col 列号
+     * @return 该列的单元格格式，没有指定时返回null
+     */
+    public String getFormat(int col) {
+        return formats[col];
+    }
+
+    /**
+     * @param col 列号
+     * @return 该列的固定列宽，自动计算时返回0
+     */
+    public int getWidth(int col) {
+        return widths[col];
+    }
+
+    String[] fieldNames() {
+        return fieldNames;
+    }
+
+    String[] headers() {
+        return headers;
+    }
+
+    String[] formats() {
+        return formats;
+    }
+
+    int[] widths() {
+        return widths;
+    }
+
+    /**
+     * @return 与列结构对应的fieldMap，供按fieldMap实现的方法使用，调用方不能修改
+     */
+    LinkedHashMap<String, String> fieldMap() {
+        return fieldMap;
+    }
+
+    /**
+     * @param entityClass 实体类
+     * @param options     导入选项
+     * @return 赋值计划，导入选项中按列指定的转换器优先于列结构中的转换器
+     * @throws ExcelException
+     * @MethodName : binderPlan
+     * @Description : 获取导入时的赋值计划。没有额外指定转换器时，带格式转换器的计划也只编译一次
+     */
+    RowBinderPlan binderPlan(Class<?> entityClass, ImportOptions options) throws ExcelException {
+        Map<String, CellConverter<?>> columnConverters = options.getColumnConverters();
+        if (converters.isEmpty()) {
+            return RowBinderPlan.of(entityClass, fieldNames, columnConverters);
+        }
+        if (entityClass != type || (columnConverters != null && !columnConverters.isEmpty())) {
+            Map<String, CellConverter<?>> merged = new HashMap<String, CellConverter<?>>(converters);
+            if (columnConverters != null) {
+                merged.putAll(columnConverters);
+            }
+            return RowBinderPlan.of(entityClass, fieldNames, merged);
+        }
+        // 注册了新的类型转换器后重新编译
+        CachedPlan cached = binderPlan;
+        int generation = RowBinderPlan.generation();
+        if (cached == null || cached.generation != generation) {
+            cached = new CachedPlan(RowBinderPlan.of(entityClass, fieldNames, converters), generation);
+            binderPlan = cached;
+        }
+        return cached.plan;
+    }
+
+    private static final class CachedPlan {
+
+        final RowBinderPlan plan;
+
+        final int generation;
+
+        CachedPlan(RowBinderPlan plan, int generation) {
+            this.plan = plan;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * 按指定格式解析日期，只有日期部分的格式时间取0点
+     */
+    private static final class DateConverter implements CellConverter<Date> {
+
+        private final DateTimeFormatter formatter;
+
+        private final String reason;
+
+        DateConverter(String pattern) {
+            this.formatter = new DateTimeFormatterBuilder().appendPattern(pattern)
+                    .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+                    .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+                    .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+                    .toFormatter();
+            this.reason = "不是有效的日期，格式应为" + pattern;
+        }
+
+        @Override
+        public Date convert(String content) throws Exception {
+            // 先做一次不抛异常的检查，错误内容不产生DateTimeParseException
+            ParsePosition position = new ParsePosition(0);
+            formatter.parseUnresolved(content, position);
+            if (position.getErrorIndex() >= 0 || position.getIndex() != content.length()) {
+                throw new InvalidCellException(reason);
+            }
+            LocalDateTime dateTime;
+            try {
+                dateTime = LocalDateTime.parse(content, formatter);
+            } catch (DateTimeParseException e) {
+                // 格式正确但日期不存在，如2月30日
+                throw new InvalidCellException(reason);
+            }
+            return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+import jxl.Cell;
+import jxl.Sheet;
+import jxl.Workbook;
+import jxl.WorkbookSettings;
+import jxl.write.WritableWorkbook;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * @Description 导出模板：预先设置好标题、列头、样式、冻结窗格和公式的xls工作簿，
+ * 数据从标记单元格（默认为${data}）所在的行和列开始填入，每列使用标记行中对应单元格的格式，
+ * 标记行下方的内容（如合计行）随数据下移；引用数据区域的公式如果包含标记行及其下一行（如SUM(C3:C4)，第4行留空），
+ * 会随插入的数据行扩展到全部数据。
+ * 模板只解析一次，之后每次导出只复制解析好的工作簿再写入数据，不需要重新读取模板文件、创建样式。
+ * 解析好的模板不可修改，可以在多个线程中共享。
+ */
+public final class ExcelTemplate {
+
+    /**
+     * 默认的数据起始标记
+     */
+    public static final String DEFAULT_MARKER = "${data}";
+
+    private static final ConcurrentMap<String, ExcelTemplate> CACHE = new ConcurrentHashMap<String, ExcelTemplate>();
+
+    /**
+     * 下一个模板的编号
+     */
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    /**
+     * 模板编号，每次解析得到的模板各不相同，用于区分导出结果（如导出缓存的键）
+     */
+    private final long id = NEXT_ID.incrementAndGet();
+
+    private final Workbook workbook;
+
+    private final int sheetIndex;
+
+    private final int startRow;
+
+    private final int startColumn;
+
+    /**
+     * 标记行下方是否还有内容，有时每写一行数据都要插入一行
+     */
+    private final boolean rowsBelow;
+
+    /**
+     * 模板文件的修改时间，文件更新后重新解析
+     */
+    private final long lastModified;
+
+    /**
+     * 模板文件已更新，工作簿已释放
+     */
+    private boolean retired;
+
+    private ExcelTemplate(Workbook workbook, int sheetIndex, int startRow, int startColumn, boolean rowsBelow, long lastModified) {
+        this.workbook = workbook;
+        this.sheetIndex = sheetIndex;
+        this.startRow = startRow;
+        this.startColumn = startColumn;
+        this.rowsBelow = rowsBelow;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @param file 模板文件（xls）
+     * @return 解析好的模板
+     * @throws ExcelException
+     * @MethodName : of
+     * @Description : 获取（必要时解析并缓存）模板，数据起始标记为${data}；模板文件修改后自动重新解析
+     */
+    public static ExcelTemplate of(File file) throws ExcelException {
+        return of(file, DEFAULT_MARKER);
+    }
+
+    /**
+     * @param file   模板文件（xls）
+     * @param marker 数据起始标记，模板中内容等于该标记的第一个单元格
+     * @return 解析好的模板
+     * @throws ExcelException
+     * @MethodName : of
+     * @Description : 获取（必要时解析并缓存）模板
+     */
+    public static ExcelTemplate of(final File file, final String marker) throws ExcelException {
+        String key = file.getAbsolutePath() + '\n' + marker;
+        final long lastModified = file.lastModified();
+        ExcelTemplate template = CACHE.get(key);
+        if (template != null && template.lastModified == lastModified) {
+            return template;
+        }
+        // 同一个模板文件同时只解析一次，其他线程等待解析结果
+        final ExcelException[] error = new ExcelException[1];
+        template = CACHE.compute(key, new BiFunction<String, ExcelTemplate, ExcelTemplate>() {
+            @Override
+            public ExcelTemplate apply(String key, ExcelTemplate cached) {
+                if (cached != null && cached.lastModified == lastModified) {
+                    return cached;
+                }
+                try {
+                    ExcelTemplate parsed = parse(file, marker, lastModified);
+                    if (cached != null) {
+                        cached.retire();
+                    }
+                    return parsed;
+                } catch (ExcelException e) {
+                    error[0] = e;
+                    return cached;
+                }
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+        return template;
+    }
+
+    private static ExcelTemplate parse(File file, String marker, long lastModified) throws ExcelException {
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            return parse(is, marker, lastModified);
+        } catch (IOException e) {
+            throw new ExcelException("读取Excel模板失败", e);
+        } finally {
+            if (is != null) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param is     模板的输入流（xls），由调用方关闭
+     * @param marker 数据起始标记
+     * @return 解析好的模板，不进入缓存，由调用方保存以便重复使用
+     * @throws ExcelException
+     * @MethodName : parse
+     * @Description : 从输入流解析模板（如模板存放在classpath或数据库中）
+     */
+    public static ExcelTemplate parse(InputStream is, String marker) throws ExcelException {
+        return parse(is, marker, 0);
+    }
+
+    private static ExcelTemplate parse(InputStream is, String marker, long lastModified) throws ExcelException {
+        Workbook workbook;
+        try {
+            workbook = Workbook.getWorkbook(is);
+        } catch (Exception e) {
+            throw new ExcelException("解析Excel模板失败", e);
+        }
+        // 查找标记单元格，同时读取所有工作表，之后复制时不再有延迟解析
+        Sheet[] sheets = workbook.getSheets();
+        ExcelTemplate template = null;
+        for (int i = 0; i < sheets.length; i++) {
+            Cell cell = sheets[i].findCell(marker);
+            if (cell != null && template == null) {
+                boolean rowsBelow = sheets[i].getRows() > cell.getRow() + 1;
+                template = new ExcelTemplate(workbook, i, cell.getRow(), cell.getColumn(), rowsBelow, lastModified);
+            }
+        }
+        if (template == null) {
+            workbook.close();
+            throw new ExcelException("Excel模板中没有数据起始标记" + marker);
+        }
+        return template;
+    }
+
+    /**
+     * @param os 导出流
+     * @return 模板的副本，数据写入副本中
+     * @throws IOException
+     * @MethodName : copy
+     * @Description : 复制模板。JXL复制时会读取模板工作簿的内部记录，同一模板的复制依次进行；
+     * 使用新的WorkbookSettings，不沿用模板中按平台编码读出的作者信息（写出时可能超出记录长度）
+     */
+    WritableWorkbook copy(OutputStream os) throws IOException, ExcelException {
+        synchronized (this) {
+            if (retired) {
+                throw new ExcelException("Excel模板文件已更新，请通过ExcelTemplate.of重新获取模板");
+            }
+            return Workbook.createWorkbook(os, workbook, new WorkbookSettings());
+        }
+    }
+
+    /**
+     * @MethodName : retire
+     * @Description : 模板文件更新后释放旧模板的工作簿。JXL在复制时已经把内容全部复制到副本中，
+     * 因此只需等待正在进行的复制结束
+     */
+    private void retire() {
+        synchronized (this) {
+            retired = true;
+            workbook.close();
+        }
+    }
+
+    long getId() {
+        return id;
+    }
+
+    int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    int getStartRow() {
+        return startRow;
+    }
+
+    int getStartColumn() {
+        return startColumn;
+    }
+
+    boolean hasRowsBelow() {
+        return rowsBelow;
+    }
+}
@@ -1,22 +1,23 @@
 package com.ccr.common.utils;
 
 import com.ccr.common.exception.ExcelException;
-import jxl.Cell;
-import jxl.Sheet;
-import jxl.Workbook;
-import jxl.write.Label;
-import jxl.write.WritableSheet;
-import jxl.write.WritableWorkbook;
+import com.ccr.common.exception.ExcelRuntimeException;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.DateFormatUtils;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Field;
-import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Created by cuichengrui on 2015/6/24.
@@ -39,45 +40,153 @@ public class ExcelUtils {
      * @Description : 导出Excel（可以导出到本地文件系统，也可以导出到浏览器，可自定义工作表大小）
      */
     public static <T> void listToExcel(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, OutputStream os) throws ExcelException {
+        listToExcel(list, fieldMap, sheetName, sheetSize, new ExportOptions(), os);
+    }
+
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数，超出所选格式的上限时按上限处理
+     * @param options   导出选项（导出格式等）
+     * @param os        导出流
+     * @throws ExcelException
+     * @MethodName : listToExcel
+     * @Description : 导出Excel（可以选择导出格式，xlsx格式每个工作表最多1048575条记录）
+     */
+    public static <T> void listToExcel(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, ExportOptions options, OutputStream os) throws ExcelException {
 
         if (CollectionUtils.isEmpty(list)) {
             throw new ExcelException("数据源中没有任何数据");
         }
 
-        if (sheetSize < 1 || sheetSize > 65535) {
-            sheetSize = 65535;
+        iteratorToExcel(list.iterator(), fieldMap, sheetName, sheetSize, options, os);
+    }
+
+    /**
+     * @param iterator  数据源，边遍历边导出，已写出的对象不再被引用
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数，超出所选格式的上限时按上限处理
+     * @param options   导出选项（导出格式等）
+     * @param os        导出流
+     * @throws ExcelException
+     * @MethodName : iteratorToExcel
+     * @Description : 导出Excel（数据按需拉取，不需要事先把全部数据加载到List中；
+     * 配合xlsx格式时内存占用与数据量无关，xls格式受JXL限制仍会在内存中生成整个工作簿）
+     */
+    public static <T> void iteratorToExcel(Iterator<T> iterator, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, ExportOptions options, OutputStream os) throws ExcelException {
+        writeExcel(iterator, ExcelSchema.of(fieldMap), sheetName, sheetSize, options, os);
+    }
+
+    /**
+     * @param iterator    数据源，边遍历边导出
+     * @param entityClass 对象的类型，列名、列顺序、格式和列宽由字段上的@ExcelColumn注解决定
+     * @param sheetName   工作表的名称
+     * @param sheetSize   每个工作表中记录的最大个数，超出所选格式的上限时按上限处理
+     * @param options     导出选项（导出格式等），按列指定的单元格格式优先于注解中的格式
+     * @param os          导出流
+     * @throws ExcelException
+     * @MethodName : iteratorToExcel
+     * @Description : 按注解导出Excel，不需要构造fieldMap；注解只在第一次使用该类型时解析
+     */
+    public static <T> void iteratorToExcel(Iterator<T> iterator, Class<T> entityClass, String sheetName, int sheetSize, ExportOptions options, OutputStream os) throws ExcelException {
+        writeExcel(iterator, ExcelSchema.of(entityClass), sheetName, sheetSize, options, os);
+    }
+
+    /**
+     * @param list        数据源
+     * @param entityClass 对象的类型，列由字段上的@ExcelColumn注解决定
+     * @param sheetName   工作表的名称
+     * @param sheetSize   每个工作表中记录的最大个数
+     * @param options     导出选项（导出格式等）
+     * @param os          导出流
+     * @throws ExcelException
+     * @MethodName : listToExcel
+     * @Description : 按注解导出Excel
+     */
+    public static <T> void listToExcel(List<T> list, Class<T> entityClass, String sheetName, int sheetSize, ExportOptions options, OutputStream os) throws ExcelException {
+        if (CollectionUtils.isEmpty(list)) {
+            throw new ExcelException("数据源中没有任何数据");
         }
+        iteratorToExcel(list.iterator(), entityClass, sheetName, sheetSize, options, os);
+    }
+
+    /**
+     * @param list        数据源
+     * @param entityClass 对象的类型，列由字段上的@ExcelColumn注解决定
+     * @param sheetName   工作表的名称
+     * @param sheetSize   每个工作表中记录的最大个数
+     * @param options     导出选项（导出格式等）
+     * @param response    使用response可以导出到浏览器
+     * @throws ExcelException
+     * @MethodName : listToExcel
+     * @Description : 按注解导出Excel（导出到浏览器）
+     */
+    public static <T> void listToExcel(List<T> list, Class<T> entityClass, String sheetName, int sheetSize, ExportOptions options, HttpServletResponse response) throws ExcelException {
+        // 设置response头信息
+        prepareResponse(response, options.getFormat());
 
-        WritableWorkbook wwb;
         try {
-            // 创建工作簿并发送到OutputStream指定的地方
-            wwb = Workbook.createWorkbook(os);
-
-            // 因为2003的Excel一个工作表最多可以有65536条记录，除去列头剩下65535条
-            // 所以如果记录太多，需要放到多个工作表中，其实就是个分页的过程
-            // 1.计算一共有多少个工作表
-            double sheetNum = Math.ceil(list.size() / new Integer(sheetSize).doubleValue());
-            // 2.创建相应的工作表,并向其中填充数据
-            for (int i = 0; i < sheetNum; i++) {
-                // 如果只有一个工作表的情况
-                if (sheetNum == 1) {
-                    WritableSheet sheet = wwb.createSheet(sheetName, i);
-                    // 向工作表中填充数据
-                    fillSheet(sheet, list, fieldMap, 0, list.size() - 1);
-
-                    // 有多个工作表的情况
-                } else {
-                    WritableSheet sheet = wwb.createSheet(sheetName + (i + 1), i);
-                    // 获取开始索引和结束索引
-                    int firstIndex = i * sheetSize;
-                    int lastIndex = (i + 1) * sheetSize - 1 > list.size() - 1 ? list.size() - 1 : (i + 1) * sheetSize - 1;
-                    // 填充工作表
-                    fillSheet(sheet, list, fieldMap, firstIndex, lastIndex);
+            listToExcel(list, entityClass, sheetName, sheetSize, options, response.getOutputStream());
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (e instanceof ExcelException) {
+                throw (ExcelException) e;
+            } else {
+                throw new ExcelException("导出excel失败");
+            }
+        }
+    }
+
+    /**
+     * @param iterator  数据源
+     * @param schema    列结构
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项
+     * @param os        导出流
+     * @throws ExcelException
+     * @MethodName : writeExcel
+     * @Description : 按列结构导出Excel
+     */
+    private static <T> void writeExcel(Iterator<T> iterator, ExcelSchema schema, String sheetName, int sheetSize, ExportOptions options, OutputStream os) throws ExcelException {
+
+        WorkbookWriter writer = null;
+        boolean finished = false;
+        try {
+            if (iterator == null || !iterator.hasNext()) {
+                throw new ExcelException("数据源中没有任何数据");
+            }
+
+            ExcelFormat format = options.getFormat();
+            if (options.getTemplate() != null) {
+                if (format != ExcelFormat.XLS) {
+                    throw new ExcelException("模板导出只支持xls格式");
                 }
+                // 模板导出时数据都写在模板的工作表中，由写入器检查是否超出容量
+                sheetSize = format.getMaxSheetSize();
+            }
+            if (sheetSize < 1 || sheetSize > format.getMaxSheetSize()) {
+                sheetSize = format.getMaxSheetSize();
             }
 
-            wwb.write();
-            wwb.close();
+            // 设置了统计监听器时按阶段计时并统计写出的字节数
+            MetricsRecorder metrics = MetricsRecorder.start(options.getMetricsListener(),
+                    ExcelMetricsReport.Operation.EXPORT, sheetName, options.isTrackAllocatedBytes());
+
+            // 创建工作簿写入器，数据发送到OutputStream指定的地方
+            writer = createWorkbookWriter(metrics.wrap(os), options);
+
+            // 因为2003的Excel一个工作表最多可以有65536条记录，除去列头剩下65535条（2007及以上为1048575条）
+            // 所以如果记录太多，需要放到多个工作表中，每个工作表写满sheetSize条记录后换下一个工作表
+            long rowCount = fillSheets(writer, iterator, schema, sheetName, sheetSize, options, metrics);
+
+            long mark = metrics.mark();
+            writer.finish();
+            finished = true;
+            metrics.lap(ExcelPhase.SERIALIZE, mark);
+            metrics.finish(rowCount);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -89,8 +198,141 @@ public class ExcelUtils {
             } else {
                 throw new ExcelException("导出Excel失败");
             }
+        } finally {
+            // 导出失败时释放写入器占用的临时文件、压缩器等资源
+            if (writer != null && !finished) {
+                writer.abort();
+            }
+        }
+
+    }
+
+    /**
+     * @param iterator  数据源
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项（导出格式等）
+     * @param response  使用response可以导出到浏览器
+     * @throws ExcelException
+     * @MethodName : iteratorToExcel
+     * @Description : 导出Excel（导出到浏览器，数据按需拉取）
+     */
+    public static <T> void iteratorToExcel(Iterator<T> iterator, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, ExportOptions options, HttpServletResponse response) throws ExcelException {
+        // 设置response头信息
+        prepareResponse(response, options.getFormat());
+
+        // 创建工作簿并发送到浏览器
+        try {
+            OutputStream os = response.getOutputStream();
+            iteratorToExcel(iterator, fieldMap, sheetName, sheetSize, options, os);
+        } catch (Exception e) {
+            e.printStackTrace();
+
+            // 如果是ExcelException,则直接抛出
+            if (e instanceof ExcelException) {
+                throw (ExcelException) e;
+            } else {
+                // 否则将其他异常包装成ExcelException再抛出
+                throw new ExcelException("导出excel失败");
+            }
+        }
+    }
+
+    /**
+     * @param iterator  数据源，在生成线程中遍历
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项（导出格式、异步线程池、超时时间等）
+     * @param request   当前请求，需要支持异步处理（asyncSupported）
+     * @param response  使用response可以导出到浏览器
+     * @throws ExcelException
+     * @MethodName : iteratorToExcelAsync
+     * @Description : 异步导出Excel到浏览器：启动异步处理后立即返回，不占用请求线程；
+     * 文件在生成线程中生成，按客户端的接收速度分块写出（Servlet 3.1 非阻塞输出）。
+     * 配合xlsx格式时客户端很快就能收到第一批数据，大文件下载不会因长时间无响应而超时。
+     * 生成过程中的错误只能记录日志，尚未写出数据时返回500状态码
+     */
+    public static <T> void iteratorToExcelAsync(final Iterator<T> iterator, final LinkedHashMap<String, String> fieldMap, final String sheetName, final int sheetSize, final ExportOptions options,
+                                                HttpServletRequest request, HttpServletResponse response) throws ExcelException {
+        if (iterator == null || !iterator.hasNext()) {
+            throw new ExcelException("数据源中没有任何数据");
         }
 
+        // 设置response头信息
+        prepareResponse(response, options.getFormat());
+
+        try {
+            AsyncContext asyncContext = request.isAsyncStarted() ? request.getAsyncContext() : request.startAsync(request, response);
+            AsyncExcelExport.start(asyncContext, response, options, new AsyncExcelExport.ExportTask() {
+                @Override
+                public void export(OutputStream os) throws Exception {
+                    iteratorToExcel(iterator, fieldMap, sheetName, sheetSize, options, os);
+                }
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+            // 如果是ExcelException,则直接抛出
+            if (e instanceof ExcelException) {
+                throw (ExcelException) e;
+            }
+            throw new ExcelException("导出excel失败", e);
+        }
+    }
+
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项（导出格式、异步线程池、超时时间等）
+     * @param request   当前请求，需要支持异步处理（asyncSupported）
+     * @param response  使用response可以导出到浏览器
+     * @throws ExcelException
+     * @MethodName : listToExcelAsync
+     * @Description : 异步导出Excel到浏览器（见iteratorToExcelAsync）
+     */
+    public static <T> void listToExcelAsync(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, ExportOptions options,
+                                            HttpServletRequest request, HttpServletResponse response) throws ExcelException {
+        if (CollectionUtils.isEmpty(list)) {
+            throw new ExcelException("数据源中没有任何数据");
+        }
+        iteratorToExcelAsync(list.iterator(), fieldMap, sheetName, sheetSize, options, request, response);
+    }
+
+    /**
+     * @param stream    数据源，导出结束后会被关闭
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项（导出格式等）
+     * @param os        导出流
+     * @throws ExcelException
+     * @MethodName : streamToExcel
+     * @Description : 导出Excel（数据来自Stream，按需拉取）
+     */
+    public static <T> void streamToExcel(Stream<T> stream, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, ExportOptions options, OutputStream os) throws ExcelException {
+        try {
+            iteratorToExcel(stream.iterator(), fieldMap, sheetName, sheetSize, options, os);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * @param supplier  分页数据源，每次导出一页后再拉取下一页
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数（与分页大小无关）
+     * @param options   导出选项（导出格式等）
+     * @param os        导出流
+     * @throws ExcelException
+     * @MethodName : pagesToExcel
+     * @Description : 导出Excel（数据来自分页查询或数据库游标，内存中同时只保留一页数据）
+     */
+    public static <T> void pagesToExcel(PageSupplier<T> supplier, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, ExportOptions options, OutputStream os) throws ExcelException {
+        iteratorToExcel(new PageIterator<T>(supplier), fieldMap, sheetName, sheetSize, options, os);
     }
 
     /**
@@ -117,17 +359,28 @@ public class ExcelUtils {
      * @Description : 导出Excel（导出到浏览器，可以自定义工作表的大小）
      */
     public static <T> void listToExcel(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, HttpServletResponse response) throws ExcelException {
-        // 文件名默认设置为当前时间：年月日时分秒
-        String fileName = DateFormatUtils.format(new Date(), "yyyyMMddhhmmss");
+        listToExcel(list, fieldMap, sheetName, sheetSize, new ExportOptions(), response);
+    }
+
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项（导出格式等）
+     * @param response  使用response可以导出到浏览器
+     * @throws ExcelException
+     * @MethodName : listToExcel
+     * @Description : 导出Excel（导出到浏览器，可以选择导出格式和自定义工作表的大小）
+     */
+    public static <T> void listToExcel(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName, int sheetSize, ExportOptions options, HttpServletResponse response) throws ExcelException {
         // 设置response头信息
-        response.reset();
-        response.setContentType("application/vnd.ms-excel");
-        response.setHeader("Content-disposition", "attachment;filename=" + fileName + ".xls");
+        prepareResponse(response, options.getFormat());
 
         // 创建工作簿并发送到浏览器
         try {
             OutputStream os = response.getOutputStream();
-            listToExcel(list, fieldMap, sheetName, sheetSize, os);
+            listToExcel(list, fieldMap, sheetName, sheetSize, options, os);
         } catch (Exception e) {
             e.printStackTrace();
 
@@ -155,96 +408,111 @@ public class ExcelUtils {
     }
 
     /**
-     * @param sheet      工作表
-     * @param list       数据源数据
-     * @param fieldMap   中英文属性对照关系map
-     * @param firstIndex 开始索引
-     * @param lastIndex  结束索引
-     * @param <E>
-     * @throws Exception
-     * @MethodName : fillSheet
-     * @Description : 向工作表中填充数据
-     */
-    private static <E> void fillSheet(WritableSheet sheet, List<E> list, LinkedHashMap<String, String> fieldMap, int firstIndex, int lastIndex) throws Exception {
-        // 定义存放英文字段名和中文字段名的数组
-        int size = fieldMap.size();
-        String[] enFields = new String[size];
-        String[] cnFields = new String[size];
-
-        // 填充数组
-        int count = 0;
-        for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
-            enFields[count] = entry.getKey();
-            cnFields[count] = entry.getValue();
-            count++;
-        }
+     * @param response 使用response可以导出到浏览器
+     * @param format   导出格式
+     * @MethodName : prepareResponse
+     * @Description : 设置导出到浏览器时的response头信息
+     */
+    static void prepareResponse(HttpServletResponse response, ExcelFormat format) {
+        // 文件名默认设置为当前时间：年月日时分秒
+        String fileName = DateFormatUtils.format(new Date(), "yyyyMMddhhmmss");
+        response.reset();
+        response.setContentType(format.getContentType());
+        response.setHeader("Content-disposition", "attachment;filename=" + fileName + "." + format.getExtension());
+    }
 
-        // 填充表头
-        for (int i = 0; i < cnFields.length; i++) {
-            Label label = new Label(i, 0, cnFields[i]);
-            sheet.addCell(label);
+    /**
+     * @param os      导出流
+     * @param options 导出选项
+     * @return 工作簿写入器
+     * @MethodName : createWorkbookWriter
+     * @Description : 根据导出格式创建工作簿写入器
+     */
+    private static WorkbookWriter createWorkbookWriter(OutputStream os, ExportOptions options) throws Exception {
+        if (options.getTemplate() != null) {
+            return new TemplateWorkbookWriter(os, options);
         }
-
-        // 填充内容
-        int rowNo = 1;
-        for (int index = firstIndex; index <= lastIndex; index++) {
-            E item = list.get(index);
-            for (int i = 0; i < enFields.length; i++) {
-                Object objValue = getFieldValueByNameSequence(enFields[i], item);
-                String fieldValue = objValue == null ? "" : objValue.toString();
-                Label label = new Label(i, rowNo, fieldValue);
-                sheet.addCell(label);
-            }
-            rowNo++;
+        if (options.getFormat() == ExcelFormat.XLSX) {
+            return new XlsxWorkbookWriter(os, options);
+        }
+        if (options.getFormat().isDelimited()) {
+            return new DelimitedWorkbookWriter(os, options);
         }
-        // 设置自动列宽
-        setColumnAutoSize(sheet, 5);
+        return new JxlWorkbookWriter(os, options);
     }
 
     /**
-     * @param fieldNameSequence 带路径的属性名或简单属性名
-     * @param o                 对象
-     * @return 属性值
+     * @param writer    工作簿写入器
+     * @param iterator  数据源
+     * @param schema    列结构（英文属性名、中文列名、格式和列宽）
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个工作表中记录的最大个数
+     * @param options   导出选项
+     * @param metrics   统计
+     * @param <E>
+     * @return 导出的行数
      * @throws Exception
-     * @MethodName : getFieldValueByNameSequence
-     * @Description : 根据带路径或不带路径的属性名获取属性值
-     * 即接受简单属性名，如userName等，又接受带路径的属性名，如student.department.name等
-     */
-    private static Object getFieldValueByNameSequence(String fieldNameSequence, Object o) throws Exception {
-        Object value = null;
-        // 将fieldNameSequence进行拆分
-        String[] attributes = fieldNameSequence.split("\\.");
-        if (attributes.length == 1) {
-            value = getFieldValueByName(fieldNameSequence, o);
-        } else {
-            // 根据属性名获取属性对象
-            Object fieldObj = getFieldValueByName(attributes[0], o);
-            String subFieldNameSequence = fieldNameSequence.substring(fieldNameSequence.indexOf(".") + 1);
-            value = getFieldValueByNameSequence(subFieldNameSequence, fieldObj);
+     * @MethodName : fillSheets
+     * @Description : 边遍历数据源边创建工作表并填充数据，每个工作表写满后换下一个
+     */
+    private static <E> long fillSheets(WorkbookWriter writer, Iterator<E> iterator, ExcelSchema schema, String sheetName, int sheetSize, ExportOptions options, MetricsRecorder metrics) throws Exception {
+        // 英文字段名和中文字段名
+        int size = schema.size();
+        String[] enFields = schema.fieldNames();
+        String[] cnFields = schema.headers();
+
+        // 各列的单元格格式（按类型写出时使用），导出选项中按列指定的格式优先
+        String[] formats = schema.formats();
+        if (options.getColumnFormats() != null) {
+            formats = formats.clone();
+            for (int i = 0; i < size; i++) {
+                String format = options.getColumnFormats().get(enFields[i]);
+                if (format != null) {
+                    formats[i] = format;
+                }
+            }
         }
 
-        return value;
-    }
+        // 把对象转换为单元格的值，开启并行导出时由线程池分块转换，写出仍在当前线程按顺序进行
+        ParallelRowRenderer<E> parallel = options.getParallelism() > 1 ? new ParallelRowRenderer<E>(iterator, enFields, options) : null;
+        Iterator<Object[]> rows = parallel != null ? parallel : new RowRenderer<E>(iterator, enFields, options);
 
-    /**
-     * @param fieldName 字段名
-     * @param o         对象
-     * @return 字段值
-     * @MethodName : getFieldValueByName
-     * @Description : 根据字段名获取字段值
-     */
-    private static Object getFieldValueByName(String fieldName, Object o) throws Exception {
-        Object value = null;
-        Field field = getFieldByName(fieldName, o.getClass());
-
-        if (field != null) {
-            field.setAccessible(true);
-            value = field.get(o);
-        } else {
-            throw new ExcelException(o.getClass().getSimpleName() + "类不存在字段名" + fieldName);
-        }
+        try {
+            long total = 0;
+            long mark = metrics.mark();
+            int sheetNo = 0;
+            while (rows.hasNext()) {
+                sheetNo++;
+                // 填充表头
+                // 只有一个工作表时直接使用sheetName，有多个工作表时依次编号
+                writer.startSheet(sheetNo == 1 ? sheetName : SheetNames.numbered(sheetName, sheetNo), cnFields, formats, schema.widths());
+
+                // 填充内容
+                int rowCount = 0;
+                while (rowCount < sheetSize && rows.hasNext()) {
+                    writer.writeRow(rows.next());
+                    rowCount++;
+                }
+                total += rowCount;
+                mark = metrics.lap(ExcelPhase.FILL, mark);
 
-        return value;
+                // 结束工作表（设置自动列宽）
+                writer.endSheet();
+                mark = metrics.lap(ExcelPhase.AUTOSIZE, mark);
+
+                // 第一个工作表写满后才知道还有没有数据，如果有则说明需要分页，把第一个工作表改为带编号的名称
+                if (sheetNo == 1 && rows.hasNext()) {
+                    writer.renameSheet(0, SheetNames.numbered(sheetName, 1));
+                }
+            }
+            return total;
+        } catch (ExcelRuntimeException e) {
+            throw e.getCause();
+        } finally {
+            if (parallel != null) {
+                parallel.close();
+            }
+        }
     }
 
     /**
@@ -254,7 +522,7 @@ public class ExcelUtils {
      * @MethodName : getFieldByName
      * @Description : 根据字段名获取字段
      */
-    private static Field getFieldByName(String fieldName, Class<?> clazz) {
+    static Field getFieldByName(String fieldName, Class<?> clazz) {
         // 拿到本类所有的字段
         Field[] selfFields = clazz.getDeclaredFields();
 
@@ -276,24 +544,32 @@ public class ExcelUtils {
     }
 
     /**
-     * @param ws
-     * @MethodName : setColumnAutoSize
-     * @Description : 设置工作表自动列宽和首行加粗
+     * @param is           要导入Excel的输入流
+     * @param sheetName    导入的工作表名称
+     * @param entityClass  List中对象的类型（Excel中的每一行都要转化为该类型的对象）
+     * @param fieldMap     类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
+     * @param uniqueFields 指定业务主键组合（即复合主键），这些列的组合不能重复
+     * @return List
+     * @throws ExcelException
+     * @Description 将Excel转化成实体对象List
      */
-    private static void setColumnAutoSize(WritableSheet ws, int extraWith) {
-        // 获取本列的最宽单元格的宽度
-        for (int i = 0; i < ws.getColumns(); i++) {
-            int colWith = 0;
-            for (int j = 0; j < ws.getRows(); j++) {
-                String content = ws.getCell(i, j).getContents().toString();
-                int cellWith = content.length();
-                if (colWith < cellWith) {
-                    colWith = cellWith;
-                }
-            }
-            // 设置单元格的宽度为最宽宽度+额外宽度
-            ws.setColumnView(i, colWith + extraWith);
-        }
+    public static <T> List<T> excelToList(InputStream is, String sheetName, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields) throws ExcelException {
+        return excelToList(is, sheetName, entityClass, fieldMap, uniqueFields, new ImportOptions());
+    }
+
+    /**
+     * @param is               要导入Excel的输入流
+     * @param sheetName        导入的工作表名称
+     * @param entityClass      List中对象的类型（Excel中的每一行都要转化为该类型的对象）
+     * @param fieldMap         类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
+     * @param uniqueFields     指定业务主键组合（即复合主键），这些列的组合不能重复
+     * @param columnConverters 按英文属性名指定的单元格转换器，优先于按类型注册的转换器，可以为null
+     * @return List
+     * @throws ExcelException
+     * @Description 将Excel转化成实体对象List（可按列自定义单元格内容的转换方式）
+     */
+    public static <T> List<T> excelToList(InputStream is, String sheetName, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields, Map<String, CellConverter<?>> columnConverters) throws ExcelException {
+        return excelToList(is, sheetName, entityClass, fieldMap, uniqueFields, new ImportOptions().setColumnConverters(columnConverters));
     }
 
     /**
@@ -302,196 +578,425 @@ public class ExcelUtils {
      * @param entityClass  List中对象的类型（Excel中的每一行都要转化为该类型的对象）
      * @param fieldMap     类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
      * @param uniqueFields 指定业务主键组合（即复合主键），这些列的组合不能重复
+     * @param options      导入选项（按列指定的转换器、业务主键查重方式、跳过和最多导入的行数等）
      * @return List
-     * @throws ExcelException
+     * @throws ExcelException 有重复行时抛出DuplicateRowException，其中包含所有重复的行
      * @Description 将Excel转化成实体对象List
      */
-    public static <T> List<T> excelToList(InputStream is, String sheetName, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields) throws ExcelException {
+    public static <T> List<T> excelToList(InputStream is, String sheetName, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields, ImportOptions options) throws ExcelException {
         // 定义要返回的list
-        List<T> resultList = new ArrayList<T>();
+        List<T> resultList;
 
         try {
-            // 根据excel数据源创建WorkBook
-            Workbook wb = Workbook.getWorkbook(is);
+            resultList = readList(is, sheetName, entityClass, ExcelSchema.of(fieldMap), uniqueFields, options);
+        } catch (Exception e) {
+            e.printStackTrace();
+            // 如果是ExcelException,则直接抛出
+            if (e instanceof ExcelException) {
+                throw (ExcelException) e;
+            } else {
+                // 否则将其包装成ExcelException,再将其抛出
+                throw new ExcelException("导入ExceL失败");
+            }
+        }
 
-            // 获取工作表
-            Sheet sheet = wb.getSheet(sheetName);
+        return resultList;
+    }
 
-            // 获取工作表的有效行数
-            int realRows = 0;
-            for (int i = 0; i < sheet.getRows(); i++) {
+    /**
+     * @param is           要导入Excel的输入流
+     * @param sheetName    导入的工作表名称
+     * @param entityClass  List中对象的类型，列由字段上的@ExcelColumn注解决定
+     * @param uniqueFields 指定业务主键组合（中文列名），这些列的组合不能重复
+     * @return List
+     * @throws ExcelException
+     * @Description 按注解将Excel转化成实体对象List，不需要构造fieldMap；
+     * 标注了format的日期字段按该格式解析
+     */
+    public static <T> List<T> excelToList(InputStream is, String sheetName, Class<T> entityClass, String[] uniqueFields) throws ExcelException {
+        return excelToList(is, sheetName, entityClass, uniqueFields, new ImportOptions());
+    }
 
-                int nullCols = 0;
-                for (int j = 0; j < sheet.getColumns(); j++) {
-                    Cell CurrentCell = sheet.getCell(j, i);
-                    if (CurrentCell == null || "".equals(CurrentCell.getContents().toString())) {
-                        nullCols++;
-                    }
-                }
+    /**
+     * @param is           要导入Excel的输入流
+     * @param sheetName    导入的工作表名称
+     * @param entityClass  List中对象的类型，列由字段上的@ExcelColumn注解决定
+     * @param uniqueFields 指定业务主键组合（中文列名），这些列的组合不能重复
+     * @param options      导入选项，按列指定的转换器优先于注解中的格式
+     * @return List
+     * @throws ExcelException 有重复行时抛出DuplicateRowException，其中包含所有重复的行
+     * @Description 按注解将Excel转化成实体对象List
+     */
+    public static <T> List<T> excelToList(InputStream is, String sheetName, Class<T> entityClass, String[] uniqueFields, ImportOptions options) throws ExcelException {
+        ExcelSchema schema = ExcelSchema.of(entityClass);
+        try {
+            return readList(is, sheetName, entityClass, schema, uniqueFields, options);
+        } catch (ExcelException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExcelException("导入ExceL失败", e);
+        }
+    }
 
-                if (nullCols == sheet.getColumns()) {
-                    break;
-                } else {
-                    realRows++;
-                }
-            }
+    /**
+     * @param is           要导入Excel的输入流
+     * @param sheetName    导入的工作表名称
+     * @param entityClass  对象的类型（Excel中的每一行都要转化为该类型的对象）
+     * @param fieldMap     类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
+     * @param uniqueFields 指定业务主键组合（即复合主键），这些列的组合不能重复
+     * @param options      导入选项（最多收集的错误数等）
+     * @return 可以导入的对象及全部错误（行号、列名、原始内容、原因）
+     * @throws ExcelException 文件无法读取、缺少列等整体性的问题仍然直接抛出
+     * @MethodName : excelToResult
+     * @Description : 校验导入Excel：一次检查所有行，内容无法转换的单元格和重复的业务主键都记录为错误而不是中止导入，
+     * 用户可以根据错误报告一次改完所有错误。错误数达到ImportOptions.maxErrors后停止检查。
+     * 内置类型的错误内容通过格式检查发现，不会为每个错误单元格创建异常
+     */
+    public static <T> ImportResult<T> excelToResult(InputStream is, String sheetName, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields, ImportOptions options) throws ExcelException {
+        return readResult(is, sheetName, entityClass, ExcelSchema.of(fieldMap), uniqueFields, options);
+    }
 
-            // 如果Excel中没有任何数据则提示错误信息
-            if (realRows <= 1) {
-                throw new ExcelException("Excel文件中没有任何数据");
-            }
+    /**
+     * @param is           要导入Excel的输入流
+     * @param sheetName    导入的工作表名称
+     * @param entityClass  对象的类型，列由字段上的@ExcelColumn注解决定
+     * @param uniqueFields 指定业务主键组合（中文列名），这些列的组合不能重复
+     * @param options      导入选项（最多收集的错误数等）
+     * @return 可以导入的对象及全部错误
+     * @throws ExcelException 文件无法读取、缺少列等整体性的问题仍然直接抛出
+     * @MethodName : excelToResult
+     * @Description : 按注解校验导入Excel（见按fieldMap校验导入的方法）
+     */
+    public static <T> ImportResult<T> excelToResult(InputStream is, String sheetName, Class<T> entityClass, String[] uniqueFields, ImportOptions options) throws ExcelException {
+        return readResult(is, sheetName, entityClass, ExcelSchema.of(entityClass), uniqueFields, options);
+    }
 
-            Cell[] firstRow = sheet.getRow(0);
-            String[] excelFieldNames = new String[firstRow.length];
-            // 获取Excel的列名
-            for (int i = 0; i < firstRow.length; i++) {
-                excelFieldNames[i] = firstRow[i].getContents().toString().trim();
-            }
-            // 判断需要的字段在Excel中是否都存在
-            boolean isExist = true;
-            List<String> excelFieldList = Arrays.asList(excelFieldNames);
-            for (String cnName : fieldMap.values()) {
-                if (!excelFieldList.contains(cnName)) {
-                    isExist = false;
-                    break;
-                }
-            }
+    private static <T> ImportResult<T> readResult(InputStream is, String sheetName, Class<T> entityClass, ExcelSchema schema, String[] uniqueFields, ImportOptions options) throws ExcelException {
+        ImportResult.Collector collector = new ImportResult.Collector(options.getMaxErrors());
+        try {
+            MetricsRecorder metrics = MetricsRecorder.start(options.getMetricsListener(),
+                    ExcelMetricsReport.Operation.IMPORT, sheetName, options.isTrackAllocatedBytes());
+            long mark = metrics.mark();
+            WorkbookSource source = WorkbookSource.open(metrics.wrap(is), options);
+            List<T> data = readSource(source, sheetName, entityClass, schema, uniqueFields, options, collector, metrics, mark);
+            metrics.finish(data.size());
+            return collector.toResult(data);
+        } catch (ExcelException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExcelException("导入ExceL失败", e);
+        }
+    }
 
-            // 如果有列名不存在或不匹配，则抛出异常并提示错误
-            if (!isExist) {
-                throw new ExcelException("Excel中缺少必要的字段，或字段名称有误");
-            }
+    /**
+     * @param is           要导入Excel的输入流
+     * @param sheetName    导入的工作表名称
+     * @param entityClass  对象的类型
+     * @param schema       列结构
+     * @param uniqueFields 业务主键组合
+     * @param options      导入选项
+     * @return 转换得到的对象
+     * @throws Exception
+     * @MethodName : readList
+     * @Description : 读取工作簿并将指定的工作表转换为对象List，遇到错误即抛出
+     */
+    private static <T> List<T> readList(InputStream is, String sheetName, Class<T> entityClass, ExcelSchema schema, String[] uniqueFields, ImportOptions options) throws Exception {
+        // 设置了统计监听器时按阶段计时并统计读取的字节数
+        MetricsRecorder metrics = MetricsRecorder.start(options.getMetricsListener(),
+                ExcelMetricsReport.Operation.IMPORT, sheetName, options.isTrackAllocatedBytes());
+        long mark = metrics.mark();
+        WorkbookSource source = WorkbookSource.open(metrics.wrap(is), options);
+        List<T> resultList = readSource(source, sheetName, entityClass, schema, uniqueFields, options, null, metrics, mark);
+        metrics.finish(resultList.size());
+        return resultList;
+    }
 
-            // 将列名和列号放入Map中，这样通过列名就可以拿到列号
-            LinkedHashMap<String, Integer> colMap = new LinkedHashMap<String, Integer>();
-            for (int i = 0; i < excelFieldNames.length; i++) {
-                colMap.put(excelFieldNames[i], firstRow[i].getColumn());
+    /**
+     * @param source       已打开的导入数据源，方法结束时关闭
+     * @param sheetName    导入的工作表名称
+     * @param entityClass  对象的类型
+     * @param schema       列结构
+     * @param uniqueFields 业务主键组合
+     * @param options      导入选项
+     * @param collector    错误收集器，为null时遇到错误即抛出异常
+     * @param metrics      统计
+     * @param mark         打开数据源前的时刻
+     * @return 转换得到的对象
+     * @throws Exception
+     * @MethodName : readSource
+     * @Description : 将数据源中指定的工作表逐行转换为对象List（xls由JXL读入整个工作簿后逐行读取），
+     * 达到最多导入的行数后不再解析
+     */
+    private static <T> List<T> readSource(WorkbookSource source, String sheetName, Class<T> entityClass, ExcelSchema schema, String[] uniqueFields, ImportOptions options,
+                                          ImportResult.Collector collector, MetricsRecorder metrics, long mark) throws Exception {
+        try {
+            SheetRowReader reader = source.openSheet(sheetName);
+            try {
+                metrics.lap(ExcelPhase.PARSE, mark);
+                SheetImporter<T> importer = new SheetImporter<T>(reader, entityClass, schema, uniqueFields, options, metrics);
+                importer.readHeader();
+                return importer.readAll(collector);
+            } finally {
+                WorkbookSource.closeSheet(reader);
             }
+        } finally {
+            source.close();
+        }
+    }
 
-            // 判断是否有重复行
-            // 1.获取uniqueFields指定的列
-            Cell[][] uniqueCells = new Cell[uniqueFields.length][];
-            for (int i = 0; i < uniqueFields.length; i++) {
-                int col = colMap.get(uniqueFields[i]);
-                uniqueCells[i] = sheet.getColumn(col);
-            }
-            // 2.从指定列中寻找重复行
-            for (int i = 1; i < realRows; i++) {
-                int nullCols = 0;
-                int length = uniqueFields.length;
-                for (int j = 0; j < length; j++) {
-                    Cell currentCell = uniqueCells[j][i];
-                    String currentContent = currentCell.getContents().toString().trim();
-                    Cell sameCell = sheet.findCell(currentContent, currentCell.getColumn(), currentCell.getRow() + 1, currentCell.getColumn(), uniqueCells[j][realRows - 1].getRow(), true);
-                    if (sameCell != null) {
-                        nullCols++;
-                    }
-                }
-                // 复合主键，意味着这些列的组合不能重复，
-                // 只有当所有的列都有重复的时候，才被认为是有重复行
-                if (nullCols == length) {
-                    throw new Exception("Excel中有重复行，请检查");
-                }
-            }
+    /**
+     * @param is            要导入Excel的输入流（xls或xlsx根据文件头自动识别，CSV、TSV需在导入选项中指定格式）
+     * @param sheetName     导入的工作表名称
+     * @param entityClass   对象的类型（Excel中的每一行都要转化为该类型的对象）
+     * @param fieldMap      类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
+     * @param uniqueFields  指定业务主键组合（即复合主键），这些列的组合不能重复，可以为null
+     * @param options       导入选项（每批的记录数等）
+     * @param batchConsumer 每转换完一批对象就调用一次，调用返回后该批对象不再被引用
+     * @throws ExcelException
+     * @MethodName : excelToBatches
+     * @Description : 边解析边分批导入Excel。xlsx文件以流的方式逐行解析，内存占用取决于每批的大小而不是文件大小，
+     * 适合一边解析一边分批写入数据库；发现重复行或错误数据时，之前的批次已经交给了batchConsumer。
+     */
+    public static <T> void excelToBatches(InputStream is, String sheetName, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields, ImportOptions options, Consumer<List<T>> batchConsumer) throws ExcelException {
+        MetricsRecorder metrics = MetricsRecorder.start(options.getMetricsListener(),
+                ExcelMetricsReport.Operation.IMPORT, sheetName, options.isTrackAllocatedBytes());
+        long mark = metrics.mark();
+        WorkbookSource source = WorkbookSource.open(metrics.wrap(is), options);
+        importBatches(source, sheetName, entityClass, ExcelSchema.of(fieldMap), uniqueFields, options, batchConsumer, metrics, mark);
+    }
 
-            // 将sheet转换为list
-            for (int i = 1; i < realRows; i++) {
-                // 新建要转换的对象
-                T entity = entityClass.newInstance();
-
-                // 给对象中的字段赋值
-                for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
-                    // 获取英文字段名
-                    String enNormalName = entry.getKey();
-                    // 获取中文字段名
-                    String cnNormalName = entry.getValue();
-                    // 根据中文字段名获取列号
-                    int col = colMap.get(cnNormalName);
-
-                    // 获取当前单元格中的内容
-                    String content = sheet.getCell(col, i).getContents().toString().trim();
-
-                    // 给对象赋值
-                    setFieldValueByName(enNormalName, content, entity);
-                }
+    /**
+     * @param file          要导入的本地文件（xls或xlsx根据文件头自动识别，CSV、TSV需在导入选项中指定格式）
+     * @param sheetName     导入的工作表名称
+     * @param entityClass   对象的类型（Excel中的每一行都要转化为该类型的对象）
+     * @param fieldMap      类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
+     * @param uniqueFields  指定业务主键组合（即复合主键），这些列的组合不能重复，可以为null
+     * @param options       导入选项（格式、每批的记录数等）
+     * @param batchConsumer 每转换完一批对象就调用一次，调用返回后该批对象不再被引用
+     * @throws ExcelException
+     * @MethodName : excelToBatches
+     * @Description : 边解析边分批导入本地文件。CSV、TSV文件做内存映射后直接解码，xlsx文件直接读取，不复制到临时文件
+     */
+    public static <T> void excelToBatches(File file, String sheetName, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields, ImportOptions options, Consumer<List<T>> batchConsumer) throws ExcelException {
+        MetricsRecorder metrics = MetricsRecorder.start(options.getMetricsListener(),
+                ExcelMetricsReport.Operation.IMPORT, sheetName, options.isTrackAllocatedBytes());
+        metrics.addBytes(file.length());
+        long mark = metrics.mark();
+        WorkbookSource source = WorkbookSource.open(file, options);
+        importBatches(source, sheetName, entityClass, ExcelSchema.of(fieldMap), uniqueFields, options, batchConsumer, metrics, mark);
+    }
+
+    /**
+     * @param source        已打开的导入数据源，方法结束时关闭
+     * @param sheetName     导入的工作表名称
+     * @param entityClass   对象的类型
+     * @param schema        列结构
+     * @param uniqueFields  业务主键组合，可以为null
+     * @param options       导入选项
+     * @param batchConsumer 每转换完一批对象就调用一次
+     * @param metrics       统计
+     * @param mark          打开数据源前的时刻
+     * @throws ExcelException
+     * @MethodName : importBatches
+     * @Description : 从导入数据源中逐行转换并分批交给batchConsumer
+     */
+    private static <T> void importBatches(WorkbookSource source, String sheetName, Class<T> entityClass, ExcelSchema schema, String[] uniqueFields, ImportOptions options, Consumer<List<T>> batchConsumer,
+                                          MetricsRecorder metrics, long mark) throws ExcelException {
+        SheetRowReader reader = null;
+        try {
+            reader = source.openSheet(sheetName);
+            metrics.lap(ExcelPhase.PARSE, mark);
+            SheetImporter<T> importer = new SheetImporter<T>(reader, entityClass, schema, uniqueFields, options, metrics);
+            importer.readHeader();
 
-                resultList.add(entity);
+            int batchSize = options.getBatchSize();
+            List<T> batch = new ArrayList<T>(batchSize);
+            T entity;
+            while ((entity = importer.next()) != null) {
+                batch.add(entity);
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<T>(batchSize);
+                }
             }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+            // 耗时中包括batchConsumer处理各批的时间，不计入任何阶段
+            metrics.finish(importer.getDataRows());
         } catch (Exception e) {
-            e.printStackTrace();
             // 如果是ExcelException,则直接抛出
             if (e instanceof ExcelException) {
                 throw (ExcelException) e;
             } else {
                 // 否则将其包装成ExcelException,再将其抛出
-                throw new ExcelException("导入ExceL失败");
+                throw new ExcelException("导入ExceL失败", e);
+            }
+        } finally {
+            if (reader != null) {
+                WorkbookSource.closeSheet(reader);
             }
+            source.close();
         }
+    }
 
-        return resultList;
+    /**
+     * @param is           要导入Excel的输入流（xls或xlsx，根据文件头自动识别）
+     * @param sheetName    导入的工作表名称
+     * @param entityClass  对象的类型（Excel中的每一行都要转化为该类型的对象）
+     * @param fieldMap     类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
+     * @param uniqueFields 指定业务主键组合（即复合主键），这些列的组合不能重复，可以为null
+     * @return 惰性的Stream，遍历到哪一行才解析到哪一行；使用完毕后必须关闭（建议使用try-with-resources）
+     * @throws ExcelException 文件无法读取或列头不匹配时抛出；遍历过程中的错误以ExcelRuntimeException抛出
+     * @MethodName : excelToStream
+     * @Description : 以Stream的形式流式导入Excel
+     */
+    public static <T> Stream<T> excelToStream(InputStream is, String sheetName, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields) throws ExcelException {
+        return excelToStream(is, sheetName, entityClass, fieldMap, uniqueFields, new ImportOptions());
     }
 
     /**
-     * @param fieldName  字段名
-     * @param fieldValue 字段值
-     * @param o          对象
-     * @Description 根据字段名给对象的字段赋值
-     */
-    private static void setFieldValueByName(String fieldName, Object fieldValue, Object o) throws Exception {
-//        if (fieldName.equals("id") || fieldName.equals("operatorId")) {
-//            return;
-//        }
-        Field field = getFieldByName(fieldName, o.getClass());
-        if (field != null) {
-            field.setAccessible(true);
-            // 获取字段类型
-            Class<?> fieldType = field.getType();
-
-            // 根据字段类型给字段赋值
-            if (String.class == fieldType) {
-                field.set(o, String.valueOf(fieldValue));
-            } else if (Integer.TYPE == fieldType || Integer.class == fieldType) {
-                field.set(o, Integer.valueOf(fieldValue.toString()));
-            } else if (Long.TYPE == fieldType || Long.class == fieldType) {
-                field.set(o, Long.valueOf(fieldValue.toString()));
-            } else if (Float.TYPE == fieldType || Float.class == fieldType) {
-                field.set(o, Float.valueOf(fieldValue.toString()));
-            } else if (Short.TYPE == fieldType || Short.class == fieldType) {
-                field.set(o, Short.valueOf(fieldValue.toString()));
-            } else if (Double.TYPE == fieldType || Double.class == fieldType) {
-                field.set(o, Double.valueOf(fieldValue.toString()));
-            } else if (Character.TYPE == fieldType) {
-                if ((fieldValue != null) && (fieldValue.toString().length() > 0)) {
-                    field.set(o, Character.valueOf(fieldValue.toString().charAt(0)));
+     * @param is           要导入Excel的输入流（xls或xlsx，根据文件头自动识别）
+     * @param sheetName    导入的工作表名称
+     * @param entityClass  对象的类型（Excel中的每一行都要转化为该类型的对象）
+     * @param fieldMap     类的英文属性和Excel中的中文列名的对应关系 例：{id=编号}
+     * @param uniqueFields 指定业务主键组合（即复合主键），这些列的组合不能重复，可以为null
+     * @param options      导入选项（按列指定的转换器、业务主键查重方式等）
+     * @return 惰性的Stream，使用完毕后必须关闭
+     * @throws ExcelException 文件无法读取或列头不匹配时抛出；遍历过程中的错误以ExcelRuntimeException抛出
+     * @MethodName : excelToStream
+     * @Description : 以Stream的形式流式导入Excel
+     */
+    public static <T> Stream<T> excelToStream(InputStream is, String sheetName, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields, ImportOptions options) throws ExcelException {
+        final MetricsRecorder metrics = MetricsRecorder.start(options.getMetricsListener(),
+                ExcelMetricsReport.Operation.IMPORT, sheetName, options.isTrackAllocatedBytes());
+        long mark = metrics.mark();
+        final WorkbookSource source = WorkbookSource.open(metrics.wrap(is), options);
+        final SheetRowReader reader;
+        final SheetImporter<T> importer;
+        try {
+            reader = source.openSheet(sheetName);
+        } catch (ExcelException e) {
+            source.close();
+            throw e;
+        }
+        metrics.lap(ExcelPhase.PARSE, mark);
+        try {
+            importer = new SheetImporter<T>(reader, entityClass, ExcelSchema.of(fieldMap), uniqueFields, options, metrics);
+            importer.readHeader();
+        } catch (Exception e) {
+            WorkbookSource.closeSheet(reader);
+            source.close();
+            throw e instanceof ExcelException ? (ExcelException) e : new ExcelException("导入ExceL失败", e);
+        }
+
+        Iterator<T> iterator = new Iterator<T>() {
+            private T nextEntity;
+
+            @Override
+            public boolean hasNext() {
+                if (nextEntity == null) {
+                    try {
+                        nextEntity = importer.next();
+                    } catch (ExcelException e) {
+                        throw new ExcelRuntimeException(e);
+                    } catch (Exception e) {
+                        throw new ExcelRuntimeException(new ExcelException("导入ExceL失败", e));
+                    }
                 }
-            } else if (Date.class == fieldType) {
-                String dateStr = fieldValue.toString();
-//                String[] split = dateStr.split("/");
-//                StringBuilder sb = new StringBuilder();
-//                int i = 0;
-//                for (String str : split) {
-//                    if (i == split.length - 1) {
-//                        sb.append("20" + str);
-//                        continue;
-//                    }
-//                    sb.append(str).append("/");
-//                    i++;
-//                }
-//                dateStr = sb.toString();
-                SimpleDateFormat formatter = new SimpleDateFormat("MM/dd/yyyy HH:mm");
-                Date parseDate = formatter.parse(dateStr);
-                //Date parseDate = DateUtils.parseDate(fieldValue.toString(), new String[] { "MM/dd/yyyy HH:mm:ss" });
-                field.set(o, parseDate);
-            } else if (BigDecimal.class == fieldType) {
-                field.set(o, new BigDecimal(fieldValue.toString()));
-            } else {
-                field.set(o, fieldValue);
+                return nextEntity != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T entity = nextEntity;
+                nextEntity = null;
+                return entity;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
             }
-        } else {
-            throw new ExcelException(o.getClass().getSimpleName() + "类不存在字段名" + fieldName);
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        WorkbookSource.closeSheet(reader);
+                        source.close();
+                        // 关闭时报告统计，耗时中包括调用方处理各对象的时间
+                        metrics.finish(importer.getDataRows());
+                    }
+                });
+    }
+
+    /**
+     * @param is           要导入Excel的输入流（xls或xlsx根据文件头自动识别）
+     * @param sheetNames   要导入的工作表名称，为null时导入所有工作表
+     * @param entityClass  对象的类型（各工作表中的每一行都要转化为该类型的对象）
+     * @param fieldMap     类的英文属性和Excel中的中文列名的对应关系，各工作表的列头都要与之对应
+     * @param uniqueFields 指定业务主键组合（即复合主键），在每个工作表内不能重复，可以为null
+     * @param options      导入选项，并行度大于1时多个工作表同时导入
+     * @return 工作表名称 -> 该工作表转换得到的对象，按工作表在工作簿中的顺序排列
+     * @throws ExcelException 工作表不存在或任一工作表导入失败时抛出，消息中包含工作表名称
+     * @MethodName : excelToMap
+     * @Description : 一次解析工作簿，导入多个版式相同的工作表（如12个月份的工作表），不需要为每个工作表重新解析文件
+     */
+    public static <T> LinkedHashMap<String, List<T>> excelToMap(InputStream is, String[] sheetNames, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields, ImportOptions options) throws ExcelException {
+        return readSheets(is, sheetNames, null, entityClass, ExcelSchema.of(fieldMap), uniqueFields, options);
+    }
+
+    /**
+     * @param is           要导入Excel的输入流（xls或xlsx根据文件头自动识别）
+     * @param sheetPattern 工作表名称需要完整匹配的正则表达式，如 Pattern.compile("\\d{1,2}月")
+     * @param entityClass  对象的类型（各工作表中的每一行都要转化为该类型的对象）
+     * @param fieldMap     类的英文属性和Excel中的中文列名的对应关系，各工作表的列头都要与之对应
+     * @param uniqueFields 指定业务主键组合（即复合主键），在每个工作表内不能重复，可以为null
+     * @param options      导入选项，并行度大于1时多个工作表同时导入
+     * @return 工作表名称 -> 该工作表转换得到的对象，按工作表在工作簿中的顺序排列
+     * @throws ExcelException 没有符合条件的工作表或任一工作表导入失败时抛出，消息中包含工作表名称
+     * @MethodName : excelToMap
+     * @Description : 一次解析工作簿，导入名称符合条件的所有工作表
+     */
+    public static <T> LinkedHashMap<String, List<T>> excelToMap(InputStream is, Pattern sheetPattern, Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields, ImportOptions options) throws ExcelException {
+        return readSheets(is, null, sheetPattern, entityClass, ExcelSchema.of(fieldMap), uniqueFields, options);
+    }
+
+    private static <T> LinkedHashMap<String, List<T>> readSheets(InputStream is, String[] sheetNames, Pattern sheetPattern, Class<T> entityClass, ExcelSchema schema, String[] uniqueFields, ImportOptions options) throws ExcelException {
+        String selection = sheetNames != null ? StringUtils.join(sheetNames, ",") : sheetPattern != null ? sheetPattern.pattern() : null;
+        MetricsRecorder metrics = MetricsRecorder.start(options.getMetricsListener(),
+                ExcelMetricsReport.Operation.IMPORT, selection, options.isTrackAllocatedBytes());
+        long mark = metrics.mark();
+        WorkbookSource source = WorkbookSource.open(metrics.wrap(is), options);
+        try {
+            metrics.lap(ExcelPhase.PARSE, mark);
+            WorkbookImporter<T> importer = new WorkbookImporter<T>(source, entityClass, schema, uniqueFields, options);
+            LinkedHashMap<String, List<T>> resultMap = importer.importSheets(importer.select(sheetNames, sheetPattern), metrics);
+            long rows = 0;
+            for (List<T> data : resultMap.values()) {
+                rows += data.size();
+            }
+            metrics.finish(rows);
+            return resultMap;
+        } finally {
+            source.close();
         }
     }
 
+    /**
+     * @param type      字段类型
+     * @param converter 转换器
+     * @MethodName : registerConverter
+     * @Description : 注册某一字段类型的全局单元格转换器，导入时该类型的字段都使用此转换器（按列指定的转换器除外）
+     */
+    public static <T> void registerConverter(Class<T> type, CellConverter<? extends T> converter) {
+        RowBinderPlan.registerConverter(type, converter);
+    }
+
     public static void main(String args[]) throws Exception {
         try {
 //            List<Student> students = new ArrayList<Student>();
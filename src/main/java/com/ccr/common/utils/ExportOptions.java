@@ -0,0 +1,340 @@
+package com.ccr.common.utils;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @Description 导出选项，所有设置方法都返回自身，便于链式调用。
+ * 例：new ExportOptions().setFormat(ExcelFormat.XLSX)
+ */
+public class ExportOptions {
+
+    /**
+     * 导出格式，默认为xls，与原有导出方法保持一致
+     */
+    private ExcelFormat format = ExcelFormat.XLS;
+
+    /**
+     * xlsx导出时每个工作表在内存中缓冲的行数，缓冲区满后写入压缩流
+     */
+    private int rowWindowSize = 100;
+
+    /**
+     * 自动列宽的计算方式，默认根据所有行计算
+     */
+    private ColumnWidthMode columnWidthMode = ColumnWidthMode.FULL;
+
+    /**
+     * 按前N行计算列宽时的行数
+     */
+    private int columnWidthSampleRows = 100;
+
+    /**
+     * 是否按类型写出单元格：数字、日期、布尔值分别写为数字、日期、布尔单元格，
+     * 默认关闭，所有值都按toString()写为文本，与原有导出结果一致
+     */
+    private boolean typedCells;
+
+    /**
+     * 按类型写出时日期单元格的默认格式（SimpleDateFormat的写法）
+     */
+    private String datePattern = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * 按英文属性名指定的单元格格式：数字列为Excel数字格式（如 #,##0.00），日期列为日期格式（如 yyyy-MM-dd）
+     */
+    private Map<String, String> columnFormats;
+
+    /**
+     * 并行转换行数据的并行度，小于等于1时在调用线程中顺序转换
+     */
+    private int parallelism = 1;
+
+    /**
+     * 并行转换时每块的行数
+     */
+    private int parallelBlockSize = 1024;
+
+    /**
+     * 并行转换使用的线程池，未指定时使用ForkJoinPool.commonPool()
+     */
+    private ExecutorService executor;
+
+    /**
+     * 异步导出到浏览器时生成文件的线程池，未指定时由容器通过AsyncContext.start()分配线程
+     */
+    private Executor asyncExecutor;
+
+    /**
+     * 异步导出的超时时间（毫秒），默认10分钟，超时后中止导出并释放连接；小于等于0表示不超时（不建议）
+     */
+    private long asyncTimeout = 10 * 60 * 1000L;
+
+    /**
+     * 异步导出时每次交给容器写出的数据块大小（字节）
+     */
+    private int asyncChunkSize = 32 * 1024;
+
+    /**
+     * 异步导出时最多缓冲的数据块个数，客户端接收不及时时生成线程在此等待
+     */
+    private int asyncMaxPendingChunks = 16;
+
+    /**
+     * 导出模板，设置后把数据填入模板的副本中（只支持xls格式，列头和样式由模板决定，不再分工作表）
+     */
+    private ExcelTemplate template;
+
+    /**
+     * CSV、TSV导出时使用的字符集
+     */
+    private Charset charset = StandardCharsets.UTF_8;
+
+    /**
+     * CSV、TSV以UTF编码导出时是否在开头写入BOM，Excel依靠BOM识别UTF-8编码
+     */
+    private boolean writeBom = true;
+
+    /**
+     * 共享字符串表最多保存的字符串个数：xlsx中重复的文本写为sharedStrings.xml中的序号，
+     * xls中重复的文本共用同一个String对象（JXL本身会合并SST中的重复文本）；
+     * 表满后新的文本按原方式写出，小于等于0时不使用共享字符串表
+     */
+    private int sharedStringsLimit = 64 * 1024;
+
+    /**
+     * 判断每列重复程度时抽样的行数：抽样行中不重复的文本超过一半的列视为高基数列，之后该列的文本不再进入共享字符串表
+     */
+    private int sharedStringsSampleRows = 1000;
+
+    /**
+     * xls导出时JXL默认先在堆内存中生成整个文件（一开始就分配5MB）再写出，开启后改为在临时文件中生成，
+     * 并发导出多时可以避免堆内存的突增
+     */
+    private boolean xlsTempFile;
+
+    /**
+     * 统计监听器，默认不统计
+     */
+    private ExcelMetricsListener metricsListener = ExcelMetricsListener.NONE;
+
+    /**
+     * 统计时是否同时统计调用线程分配的内存（需要JVM支持）
+     */
+    private boolean trackAllocatedBytes;
+
+    public ExcelFormat getFormat() {
+        return format;
+    }
+
+    public ExportOptions setFormat(ExcelFormat format) {
+        this.format = format == null ? ExcelFormat.XLS : format;
+        return this;
+    }
+
+    public int getRowWindowSize() {
+        return rowWindowSize;
+    }
+
+    public ExportOptions setRowWindowSize(int rowWindowSize) {
+        this.rowWindowSize = rowWindowSize < 1 ? 1 : rowWindowSize;
+        return this;
+    }
+
+    public ColumnWidthMode getColumnWidthMode() {
+        return columnWidthMode;
+    }
+
+    public ExportOptions setColumnWidthMode(ColumnWidthMode columnWidthMode) {
+        this.columnWidthMode = columnWidthMode == null ? ColumnWidthMode.FULL : columnWidthMode;
+        return this;
+    }
+
+    public int getColumnWidthSampleRows() {
+        return columnWidthSampleRows;
+    }
+
+    public ExportOptions setColumnWidthSampleRows(int columnWidthSampleRows) {
+        this.columnWidthSampleRows = columnWidthSampleRows < 0 ? 0 : columnWidthSampleRows;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism 并行度，大于1时开启并行导出：多个线程同时转换行数据，由调用线程按原顺序写出，
+     *                    导出的内容与顺序导出完全一致
+     */
+    public ExportOptions setParallelism(int parallelism) {
+        this.parallelism = parallelism < 1 ? 1 : parallelism;
+        return this;
+    }
+
+    public int getParallelBlockSize() {
+        return parallelBlockSize;
+    }
+
+    public ExportOptions setParallelBlockSize(int parallelBlockSize) {
+        this.parallelBlockSize = parallelBlockSize < 1 ? 1 : parallelBlockSize;
+        return this;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor == null ? ForkJoinPool.commonPool() : executor;
+    }
+
+    public ExportOptions setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public boolean isTypedCells() {
+        return typedCells;
+    }
+
+    public ExportOptions setTypedCells(boolean typedCells) {
+        this.typedCells = typedCells;
+        return this;
+    }
+
+    public String getDatePattern() {
+        return datePattern;
+    }
+
+    public ExportOptions setDatePattern(String datePattern) {
+        this.datePattern = datePattern;
+        return this;
+    }
+
+    public Map<String, String> getColumnFormats() {
+        return columnFormats;
+    }
+
+    public ExportOptions setColumnFormats(Map<String, String> columnFormats) {
+        this.columnFormats = columnFormats;
+        return this;
+    }
+
+    public ExportOptions putColumnFormat(String fieldName, String pattern) {
+        if (columnFormats == null) {
+            columnFormats = new HashMap<String, String>();
+        }
+        columnFormats.put(fieldName, pattern);
+        return this;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    public ExportOptions setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+        return this;
+    }
+
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    public ExportOptions setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+        return this;
+    }
+
+    public int getAsyncChunkSize() {
+        return asyncChunkSize;
+    }
+
+    public ExportOptions setAsyncChunkSize(int asyncChunkSize) {
+        this.asyncChunkSize = asyncChunkSize < 512 ? 512 : asyncChunkSize;
+        return this;
+    }
+
+    public int getAsyncMaxPendingChunks() {
+        return asyncMaxPendingChunks;
+    }
+
+    public ExportOptions setAsyncMaxPendingChunks(int asyncMaxPendingChunks) {
+        this.asyncMaxPendingChunks = asyncMaxPendingChunks < 1 ? 1 : asyncMaxPendingChunks;
+        return this;
+    }
+
+    public ExcelMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    public ExportOptions setMetricsListener(ExcelMetricsListener metricsListener) {
+        this.metricsListener = metricsListener == null ? ExcelMetricsListener.NONE : metricsListener;
+        return this;
+    }
+
+    public boolean isTrackAllocatedBytes() {
+        return trackAllocatedBytes;
+    }
+
+    public ExportOptions setTrackAllocatedBytes(boolean trackAllocatedBytes) {
+        this.trackAllocatedBytes = trackAllocatedBytes;
+        return this;
+    }
+
+    public ExcelTemplate getTemplate() {
+        return template;
+    }
+
+    public ExportOptions setTemplate(ExcelTemplate template) {
+        this.template = template;
+        return this;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public ExportOptions setCharset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    public boolean isWriteBom() {
+        return writeBom;
+    }
+
+    public ExportOptions setWriteBom(boolean writeBom) {
+        this.writeBom = writeBom;
+        return this;
+    }
+
+    public int getSharedStringsLimit() {
+        return sharedStringsLimit;
+    }
+
+    public ExportOptions setSharedStringsLimit(int sharedStringsLimit) {
+        this.sharedStringsLimit = sharedStringsLimit;
+        return this;
+    }
+
+    public boolean isXlsTempFile() {
+        return xlsTempFile;
+    }
+
+    public ExportOptions setXlsTempFile(boolean xlsTempFile) {
+        this.xlsTempFile = xlsTempFile;
+        return this;
+    }
+
+    public int getSharedStringsSampleRows() {
+        return sharedStringsSampleRows;
+    }
+
+    public ExportOptions setSharedStringsSampleRows(int sharedStringsSampleRows) {
+        this.sharedStringsSampleRows = sharedStringsSampleRows;
+        return this;
+    }
+}
@@ -0,0 +1,209 @@
+package com.ccr.common.utils;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @Description 导入选项，所有设置方法都返回自身，便于链式调用。
+ * 例：new ImportOptions().setBatchSize(500)
+ */
+public class ImportOptions {
+
+    /**
+     * 分批导入时每批的记录数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 跳过的数据行数（不含列头），用于从第N行继续导入；跳过的行不转换，也不参与业务主键查重
+     */
+    private int rowOffset;
+
+    /**
+     * 最多导入的数据行数，小于等于0表示不限；流式读取时达到后即停止解析，适合预览前几行
+     */
+    private int rowLimit;
+
+    /**
+     * 按英文属性名指定的单元格转换器，优先于按类型注册的转换器
+     */
+    private Map<String, CellConverter<?>> columnConverters;
+
+    /**
+     * 业务主键查重时是否只保存主键的指纹，适合主键很长或行数很多的导入
+     */
+    private boolean compactUniqueIndex;
+
+    /**
+     * 校验导入时最多收集的错误数，达到后停止检查，小于等于0表示不限
+     */
+    private int maxErrors = 100;
+
+    /**
+     * 并行转换行数据的并行度，小于等于1时在调用线程中顺序转换
+     */
+    private int parallelism = 1;
+
+    /**
+     * 并行转换时每块的行数
+     */
+    private int parallelBlockSize = 2048;
+
+    /**
+     * 并行转换使用的线程池，未指定时使用ForkJoinPool.commonPool()
+     */
+    private ExecutorService executor;
+
+    /**
+     * 统计监听器，默认不统计
+     */
+    private ExcelMetricsListener metricsListener = ExcelMetricsListener.NONE;
+
+    /**
+     * 统计时是否同时统计调用线程分配的内存（需要JVM支持）
+     */
+    private boolean trackAllocatedBytes;
+
+    /**
+     * 导入文件的格式，为null时根据文件头识别xls和xlsx；CSV、TSV无法识别，需要明确指定
+     */
+    private ExcelFormat format;
+
+    /**
+     * CSV、TSV导入时使用的字符集，开头的BOM会被忽略
+     */
+    private Charset charset = StandardCharsets.UTF_8;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public ImportOptions setBatchSize(int batchSize) {
+        this.batchSize = batchSize < 1 ? 1 : batchSize;
+        return this;
+    }
+
+    public int getRowOffset() {
+        return rowOffset;
+    }
+
+    public ImportOptions setRowOffset(int rowOffset) {
+        this.rowOffset = rowOffset < 0 ? 0 : rowOffset;
+        return this;
+    }
+
+    public int getRowLimit() {
+        return rowLimit;
+    }
+
+    public ImportOptions setRowLimit(int rowLimit) {
+        this.rowLimit = rowLimit;
+        return this;
+    }
+
+    public Map<String, CellConverter<?>> getColumnConverters() {
+        return columnConverters;
+    }
+
+    public ImportOptions setColumnConverters(Map<String, CellConverter<?>> columnConverters) {
+        this.columnConverters = columnConverters;
+        return this;
+    }
+
+    public ImportOptions putColumnConverter(String fieldName, CellConverter<?> converter) {
+        if (columnConverters == null) {
+            columnConverters = new HashMap<String, CellConverter<?>>();
+        }
+        columnConverters.put(fieldName, converter);
+        return this;
+    }
+
+    public boolean isCompactUniqueIndex() {
+        return compactUniqueIndex;
+    }
+
+    public ImportOptions setCompactUniqueIndex(boolean compactUniqueIndex) {
+        this.compactUniqueIndex = compactUniqueIndex;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism 并行度，大于1时开启并行导入：调用线程读取单元格，多个线程同时把行数据转换为对象，
+     *                    结果按原顺序合并，与顺序导入完全一致；自定义的转换器需要是线程安全的
+     */
+    public ImportOptions setParallelism(int parallelism) {
+        this.parallelism = parallelism < 1 ? 1 : parallelism;
+        return this;
+    }
+
+    public int getParallelBlockSize() {
+        return parallelBlockSize;
+    }
+
+    public ImportOptions setParallelBlockSize(int parallelBlockSize) {
+        this.parallelBlockSize = parallelBlockSize < 1 ? 1 : parallelBlockSize;
+        return this;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor == null ? ForkJoinPool.commonPool() : executor;
+    }
+
+    public ImportOptions setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public int getMaxErrors() {
+        return maxErrors;
+    }
+
+    public ImportOptions setMaxErrors(int maxErrors) {
+        this.maxErrors = maxErrors;
+        return this;
+    }
+
+    public ExcelMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    public ImportOptions setMetricsListener(ExcelMetricsListener metricsListener) {
+        this.metricsListener = metricsListener == null ? ExcelMetricsListener.NONE : metricsListener;
+        return this;
+    }
+
+    public boolean isTrackAllocatedBytes() {
+        return trackAllocatedBytes;
+    }
+
+    public ImportOptions setTrackAllocatedBytes(boolean trackAllocatedBytes) {
+        this.trackAllocatedBytes = trackAllocatedBytes;
+        return this;
+    }
+
+    public ExcelFormat getFormat() {
+        return format;
+    }
+
+    public ImportOptions setFormat(ExcelFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public ImportOptions setCharset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+}
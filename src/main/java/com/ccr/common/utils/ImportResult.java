@@ -0,0 +1,108 @@
+package com.ccr.common.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @Description 校验导入的结果：所有可以导入的对象，以及一次检查出的全部错误（最多ImportOptions.maxErrors处）。
+ * 有错误的行不会出现在数据中，调用方通常在没有错误时才保存数据，有错误时把错误报告返回给用户。
+ */
+public class ImportResult<T> {
+
+    private final List<T> data;
+
+    private final List<CellError> errors;
+
+    private final boolean truncated;
+
+    ImportResult(List<T> data, List<CellError> errors, boolean truncated) {
+        this.data = data;
+        this.errors = Collections.unmodifiableList(errors);
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return 可以导入的对象，按Excel中的行顺序排列
+     */
+    public List<T> getData() {
+        return data;
+    }
+
+    /**
+     * @return 按行号排列的错误
+     */
+    public List<CellError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return 是否有错误
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * @return 错误数达到上限后是否停止了检查，此时后面的行可能还有错误
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @Description 收集错误，多个线程按块转换时各自收集，再按行号合并
+     */
+    static class Collector {
+
+        private final int maxErrors;
+
+        private final List<CellError> errors = new ArrayList<CellError>();
+
+        private boolean truncated;
+
+        /**
+         * @param maxErrors 最多收集的错误数，小于等于0表示不限
+         */
+        Collector(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void add(CellError error) {
+            if (isFull()) {
+                truncated = true;
+                return;
+            }
+            errors.add(error);
+        }
+
+        void addAll(List<CellError> blockErrors) {
+            for (CellError error : blockErrors) {
+                add(error);
+            }
+        }
+
+        /**
+         * @return 错误数是否已经达到上限
+         */
+        boolean isFull() {
+            return maxErrors > 0 && errors.size() >= maxErrors;
+        }
+
+        void setTruncated() {
+            truncated = true;
+        }
+
+        <T> ImportResult<T> toResult(List<T> data) {
+            List<CellError> sorted = new ArrayList<CellError>(errors);
+            Collections.sort(sorted, new Comparator<CellError>() {
+                @Override
+                public int compare(CellError o1, CellError o2) {
+                    return Integer.compare(o1.getRow(), o2.getRow());
+                }
+            });
+            return new ImportResult<T>(data, sorted, truncated);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.ccr.common.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description 在内存中汇总统计报告的监听器：按操作类型累计次数、行数、字节数和各阶段耗时，
+ * 并保留最近的若干份报告。适合在测试、排查问题时使用，或作为对接监控系统的参考实现。
+ */
+public class InMemoryMetricsListener implements ExcelMetricsListener {
+
+    private final int maxReports;
+
+    private final ArrayDeque<ExcelMetricsReport> reports = new ArrayDeque<ExcelMetricsReport>();
+
+    private final Map<ExcelMetricsReport.Operation, Totals> totals =
+            new EnumMap<ExcelMetricsReport.Operation, Totals>(ExcelMetricsReport.Operation.class);
+
+    public InMemoryMetricsListener() {
+        this(100);
+    }
+
+    /**
+     * @param maxReports 保留的最近报告数
+     */
+    public InMemoryMetricsListener(int maxReports) {
+        this.maxReports = maxReports < 1 ? 1 : maxReports;
+        for (ExcelMetricsReport.Operation operation : ExcelMetricsReport.Operation.values()) {
+            totals.put(operation, new Totals());
+        }
+    }
+
+    @Override
+    public synchronized void onComplete(ExcelMetricsReport report) {
+        if (reports.size() >= maxReports) {
+            reports.removeFirst();
+        }
+        reports.addLast(report);
+
+        Totals total = totals.get(report.getOperation());
+        total.count++;
+        total.rows += report.getRows();
+        total.bytes += report.getBytes();
+        total.elapsedNanos += report.getElapsedNanos();
+        for (ExcelPhase phase : ExcelPhase.values()) {
+            total.phaseNanos[phase.ordinal()] += report.getPhaseNanos(phase);
+        }
+    }
+
+    /**
+     * @return 最近的报告，按时间先后排列
+     */
+    public synchronized List<ExcelMetricsReport> getReports() {
+        return new ArrayList<ExcelMetricsReport>(reports);
+    }
+
+    /**
+     * @return 指定操作的次数
+     */
+    public synchronized long getCount(ExcelMetricsReport.Operation operation) {
+        return totals.get(operation).count;
+    }
+
+    /**
+     * @return 指定操作累计的行数
+     */
+    public synchronized long getRows(ExcelMetricsReport.Operation operation) {
+        return totals.get(operation).rows;
+    }
+
+    /**
+     * @return 指定操作累计读写的字节数
+     */
+    public synchronized long getBytes(ExcelMetricsReport.Operation operation) {
+        return totals.get(operation).bytes;
+    }
+
+    /**
+     * @return 指定操作在某一阶段累计的耗时（纳秒）
+     */
+    public synchronized long getPhaseNanos(ExcelMetricsReport.Operation operation, ExcelPhase phase) {
+        return totals.get(operation).phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return 指定操作的平均每秒行数
+     */
+    public synchronized double getRowsPerSecond(ExcelMetricsReport.Operation operation) {
+        Totals total = totals.get(operation);
+        return total.elapsedNanos > 0 ? total.rows * 1e9 / total.elapsedNanos : 0;
+    }
+
+    /**
+     * @MethodName : reset
+     * @Description : 清空所有统计
+     */
+    public synchronized void reset() {
+        reports.clear();
+        for (Totals total : totals.values()) {
+            total.count = 0;
+            total.rows = 0;
+            total.bytes = 0;
+            total.elapsedNanos = 0;
+            Arrays.fill(total.phaseNanos, 0);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<ExcelMetricsReport.Operation, Totals> entry : totals.entrySet()) {
+            Totals total = entry.getValue();
+            if (total.count == 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(entry.getKey()).append(" count=").append(total.count)
+                    .append(" rows=").append(total.rows)
+                    .append(" bytes=").append(total.bytes)
+                    .append(" rows/s=").append((long) getRowsPerSecond(entry.getKey()));
+            for (ExcelPhase phase : ExcelPhase.values()) {
+                long nanos = total.phaseNanos[phase.ordinal()];
+                if (nanos > 0) {
+                    builder.append(' ').append(phase).append('=').append(nanos / 1000000).append("ms");
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static class Totals {
+
+        long count;
+
+        long rows;
+
+        long bytes;
+
+        long elapsedNanos;
+
+        final long[] phaseNanos = new long[ExcelPhase.values().length];
+    }
+}
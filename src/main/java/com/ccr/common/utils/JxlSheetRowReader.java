@@ -0,0 +1,92 @@
+package com.ccr.common.utils;
+
+import jxl.Cell;
+import jxl.CellType;
+import jxl.LabelCell;
+import jxl.Sheet;
+
+/**
+ * @Description 基于JXL的xls工作表读取器，JXL会把整个工作簿读入内存，这里只是按行遍历。
+ * 不需要的列只判断是否有值，不调用getContents()格式化数字和日期。
+ * JXL在整个工作簿中共享单元格的格式化对象（DateFormat、NumberFormat），它们不是线程安全的，
+ * 因此同一工作簿的多个工作表在不同线程中读取时，每次读取一行都要先取得工作簿的锁
+ */
+class JxlSheetRowReader implements SheetRowReader {
+
+    private static final String[] EMPTY_ROW = new String[0];
+
+    private final Sheet sheet;
+
+    private final int rows;
+
+    /**
+     * 同一工作簿的读取器共用的锁
+     */
+    private final Object lock;
+
+    private int rowIndex = -1;
+
+    private boolean[] columns;
+
+    /**
+     * @param sheet 工作表
+     * @param lock  同一工作簿的读取器共用的锁，在持有该锁时调用构造方法
+     */
+    JxlSheetRowReader(Sheet sheet, Object lock) {
+        this.sheet = sheet;
+        this.rows = sheet.getRows();
+        this.lock = lock;
+    }
+
+    @Override
+    public void setColumns(boolean[] columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public String[] nextRow() {
+        if (rowIndex + 1 >= rows) {
+            return null;
+        }
+        rowIndex++;
+        synchronized (lock) {
+            return readRow(sheet.getRow(rowIndex));
+        }
+    }
+
+    private String[] readRow(Cell[] cells) {
+        if (cells.length == 0) {
+            return EMPTY_ROW;
+        }
+        String[] row = new String[cells[cells.length - 1].getColumn() + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = "";
+        }
+        for (Cell cell : cells) {
+            int col = cell.getColumn();
+            if (columns == null || col < columns.length && columns[col]) {
+                row[col] = cell.getContents();
+            } else if (hasValue(cell)) {
+                row[col] = SKIPPED;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * @param cell 单元格
+     * @return 单元格是否有值，不格式化单元格的内容
+     */
+    static boolean hasValue(Cell cell) {
+        CellType type = cell.getType();
+        if (type == CellType.EMPTY) {
+            return false;
+        }
+        return type != CellType.LABEL || ((LabelCell) cell).getString().length() > 0;
+    }
+
+    @Override
+    public int getRowIndex() {
+        return rowIndex;
+    }
+}
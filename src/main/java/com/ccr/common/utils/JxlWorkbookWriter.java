@@ -0,0 +1,202 @@
+package com.ccr.common.utils;
+
+import jxl.Workbook;
+import jxl.WorkbookSettings;
+import jxl.write.DateFormat;
+import jxl.write.DateTime;
+import jxl.write.Label;
+import jxl.write.NumberFormat;
+import jxl.write.WritableCellFormat;
+import jxl.write.WritableSheet;
+import jxl.write.WritableWorkbook;
+
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description 基于JXL的xls写入器，工作簿在内存中生成，finish时一次性写出。
+ * 按类型写出时，相同格式的单元格共用同一个WritableCellFormat（整个工作簿只创建一次），
+ * 既避免每个单元格创建格式对象，也不会超出xls格式记录数的上限。
+ * 工作簿写出前所有单元格都保存在内存中，重复的文本通过共享字符串表共用同一个String对象，
+ * 写出时JXL再把它们合并为SST中的一项。
+ */
+class JxlWorkbookWriter implements WorkbookWriter {
+
+    private final WritableWorkbook wwb;
+
+    private final AbortableOutputStream out;
+
+    private final ExportOptions options;
+
+    /**
+     * 格式 -> 单元格格式，数字格式和日期格式分开缓存
+     */
+    private final Map<String, WritableCellFormat> numberFormats = new HashMap<String, WritableCellFormat>();
+
+    private final Map<String, WritableCellFormat> dateFormats = new HashMap<String, WritableCellFormat>();
+
+    /**
+     * 共享字符串表，为null时不合并重复的文本
+     */
+    private final SharedStringTable sharedStrings;
+
+    private ColumnWidthTracker widthTracker;
+
+    /**
+     * 当前工作表各列使用的格式
+     */
+    private String[] formats;
+
+    private WritableCellFormat[] columnNumberFormats;
+
+    private WritableCellFormat[] columnDateFormats;
+
+    private WritableSheet sheet;
+
+    private int sheetIndex;
+
+    private int rowNo;
+
+    JxlWorkbookWriter(OutputStream os, ExportOptions options) throws Exception {
+        // 创建工作簿并发送到OutputStream指定的地方
+        this.out = new AbortableOutputStream(os);
+        if (options.isXlsTempFile()) {
+            WorkbookSettings settings = new WorkbookSettings();
+            settings.setUseTemporaryFileDuringWrite(true);
+            this.wwb = Workbook.createWorkbook(out, settings);
+        } else {
+            this.wwb = Workbook.createWorkbook(out);
+        }
+        this.options = options;
+        this.sharedStrings = SharedStringTable.of(options);
+    }
+
+    @Override
+    public void startSheet(String sheetName, String[] headers, String[] formats, int[] widths) throws Exception {
+        sheet = wwb.createSheet(SheetNames.sanitize(sheetName), sheetIndex++);
+        // 填充表头
+        for (int i = 0; i < headers.length; i++) {
+            sheet.addCell(new Label(i, 0, headers[i]));
+        }
+        rowNo = 1;
+        widthTracker = new ColumnWidthTracker(headers, widths, options);
+        this.formats = formats;
+        // 用到时才创建各列的单元格格式
+        columnNumberFormats = new WritableCellFormat[headers.length];
+        columnDateFormats = new WritableCellFormat[headers.length];
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws Exception {
+        // 写入的同时更新列宽，不需要写完后再遍历整个工作表
+        boolean tracking = widthTracker.isTracking();
+        for (int i = 0; i < values.length; i++) {
+            Object objValue = values[i];
+            if (objValue instanceof Number) {
+                WritableCellFormat format = numberFormat(i);
+                double value = ((Number) objValue).doubleValue();
+                sheet.addCell(format == null ? new jxl.write.Number(i, rowNo, value)
+                        : new jxl.write.Number(i, rowNo, value, format));
+            } else if (objValue instanceof Date) {
+                sheet.addCell(new DateTime(i, rowNo, (Date) objValue, dateFormat(i)));
+            } else if (objValue instanceof Boolean) {
+                sheet.addCell(new jxl.write.Boolean(i, rowNo, (Boolean) objValue));
+            } else {
+                String fieldValue = objValue == null ? "" : objValue.toString();
+                if (sharedStrings != null) {
+                    fieldValue = sharedStrings.intern(i, fieldValue);
+                }
+                sheet.addCell(new Label(i, rowNo, fieldValue));
+                objValue = fieldValue;
+            }
+            if (tracking) {
+                widthTracker.trackValue(i, objValue, datePattern(i));
+            }
+        }
+        if (tracking) {
+            widthTracker.endRow();
+        }
+        rowNo++;
+    }
+
+    @Override
+    public void endSheet() throws Exception {
+        // 设置自动列宽
+        if (widthTracker.isEnabled()) {
+            for (int i = 0; i < widthTracker.size(); i++) {
+                int width = widthTracker.getWidth(i);
+                if (width > 0) {
+                    sheet.setColumnView(i, width);
+                }
+            }
+        }
+        sheet = null;
+        widthTracker = null;
+        formats = null;
+        columnNumberFormats = null;
+        columnDateFormats = null;
+    }
+
+    @Override
+    public void renameSheet(int sheetIndex, String sheetName) throws Exception {
+        wwb.getSheet(sheetIndex).setName(SheetNames.sanitize(sheetName));
+    }
+
+    @Override
+    public void finish() throws Exception {
+        wwb.write();
+        wwb.close();
+    }
+
+    @Override
+    public void abort() {
+        // 关闭时JXL会把已生成的部分写出并删除临时文件，写出的内容被丢弃
+        out.abort();
+        try {
+            wwb.close();
+        } catch (Exception e) {
+            // 已经在失败处理中，忽略关闭时的异常
+        }
+    }
+
+    /**
+     * @param col 列号
+     * @return 该列数字单元格的格式，没有指定格式时返回null（使用默认格式）
+     */
+    private WritableCellFormat numberFormat(int col) {
+        WritableCellFormat format = columnNumberFormats[col];
+        if (format == null && formats[col] != null) {
+            format = numberFormats.get(formats[col]);
+            if (format == null) {
+                format = new WritableCellFormat(new NumberFormat(formats[col]));
+                numberFormats.put(formats[col], format);
+            }
+            columnNumberFormats[col] = format;
+        }
+        return format;
+    }
+
+    /**
+     * @param col 列号
+     * @return 该列日期单元格的格式
+     */
+    private WritableCellFormat dateFormat(int col) {
+        WritableCellFormat format = columnDateFormats[col];
+        if (format == null) {
+            String pattern = datePattern(col);
+            format = dateFormats.get(pattern);
+            if (format == null) {
+                format = new WritableCellFormat(new DateFormat(pattern));
+                dateFormats.put(pattern, format);
+            }
+            columnDateFormats[col] = format;
+        }
+        return format;
+    }
+
+    private String datePattern(int col) {
+        return formats[col] != null ? formats[col] : options.getDatePattern();
+    }
+}
@@ -0,0 +1,219 @@
+package com.ccr.common.utils;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * @Description 一次导入或导出的统计：在调用线程中按阶段累计耗时，结束时生成报告交给监听器。
+ * 没有设置监听器时使用同一个关闭的实例，mark()和lap()直接返回0，不读取时钟，也不包装输入输出流。
+ * 只能在一个线程中使用，其他线程通过fork得到各自的实例，结束后再合并。
+ */
+final class MetricsRecorder {
+
+    private static final MetricsRecorder DISABLED = new MetricsRecorder(null, null, null, false);
+
+    private final ExcelMetricsListener listener;
+
+    private final ExcelMetricsReport.Operation operation;
+
+    private final String sheetName;
+
+    private final boolean enabled;
+
+    private final long[] phaseNanos = new long[ExcelPhase.values().length];
+
+    private long startNanos;
+
+    private long startAllocatedBytes = -1;
+
+    private long threadId;
+
+    private long bytes;
+
+    private MetricsRecorder(ExcelMetricsListener listener, ExcelMetricsReport.Operation operation, String sheetName,
+                            boolean enabled) {
+        this.listener = listener;
+        this.operation = operation;
+        this.sheetName = sheetName;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param listener            统计监听器
+     * @param operation           操作类型
+     * @param sheetName           工作表名称
+     * @param trackAllocatedBytes 是否统计调用线程分配的内存
+     * @return 已开始计时的统计，监听器为NONE或null时返回关闭的实例
+     */
+    static MetricsRecorder start(ExcelMetricsListener listener, ExcelMetricsReport.Operation operation,
+                                 String sheetName, boolean trackAllocatedBytes) {
+        if (listener == null || listener == ExcelMetricsListener.NONE) {
+            return DISABLED;
+        }
+        MetricsRecorder recorder = new MetricsRecorder(listener, operation, sheetName, true);
+        if (trackAllocatedBytes) {
+            recorder.threadId = Thread.currentThread().getId();
+            recorder.startAllocatedBytes = allocatedBytes(recorder.threadId);
+        }
+        recorder.startNanos = System.nanoTime();
+        return recorder;
+    }
+
+    /**
+     * @return 在另一个线程中统计各阶段耗时的实例，不报告，由merge合并到本实例；关闭时返回关闭的实例
+     */
+    MetricsRecorder fork() {
+        return enabled ? new MetricsRecorder(null, operation, sheetName, true) : DISABLED;
+    }
+
+    /**
+     * @param child 由fork得到、已经不再使用的实例
+     * @MethodName : merge
+     * @Description : 把另一个线程中的阶段耗时累加到本实例，并发时各阶段耗时为所有线程的合计，可能超过总耗时
+     */
+    void merge(MetricsRecorder child) {
+        if (!enabled || !child.enabled) {
+            return;
+        }
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] += child.phaseNanos[i];
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return 当前时刻，关闭时返回0
+     */
+    long mark() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param phase 阶段
+     * @param mark  上一个时刻
+     * @return 当前时刻，作为下一段计时的起点；关闭时返回0
+     * @MethodName : lap
+     * @Description : 把从mark到现在的时间计入指定阶段
+     */
+    long lap(ExcelPhase phase, long mark) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - mark;
+        return now;
+    }
+
+    /**
+     * @param count 不经过包装流读写的字节数（如内存映射的文件）
+     */
+    void addBytes(long count) {
+        if (enabled) {
+            bytes += count;
+        }
+    }
+
+    /**
+     * @param os 导出流
+     * @return 统计写出字节数的导出流，关闭时原样返回
+     */
+    OutputStream wrap(OutputStream os) {
+        if (!enabled) {
+            return os;
+        }
+        return new FilterOutputStream(os) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                bytes += len;
+            }
+        };
+    }
+
+    /**
+     * @param is 输入流
+     * @return 统计读取字节数的输入流，关闭时原样返回
+     */
+    InputStream wrap(InputStream is) {
+        if (!enabled) {
+            return is;
+        }
+        return new FilterInputStream(is) {
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b >= 0) {
+                    bytes++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = in.read(b, off, len);
+                if (n > 0) {
+                    bytes += n;
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = in.skip(n);
+                bytes += skipped;
+                return skipped;
+            }
+        };
+    }
+
+    /**
+     * @param rows 导出的行数或导入得到的对象数
+     * @MethodName : finish
+     * @Description : 结束计时并把报告交给监听器，监听器的异常只打印不抛出
+     */
+    void finish(long rows) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        long allocated = -1;
+        if (startAllocatedBytes >= 0 && threadId == Thread.currentThread().getId()) {
+            long end = allocatedBytes(threadId);
+            allocated = end >= 0 ? end - startAllocatedBytes : -1;
+        }
+        try {
+            listener.onComplete(new ExcelMetricsReport(operation, sheetName, rows, bytes, elapsed,
+                    phaseNanos.clone(), allocated));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return 线程已分配的内存字节数，JVM不支持时返回-1
+     */
+    private static long allocatedBytes(long threadId) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(threadId);
+            }
+        }
+        return -1;
+    }
+}
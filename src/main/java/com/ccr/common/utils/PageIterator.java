@@ -0,0 +1,55 @@
+package com.ccr.common.utils;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * @Description 将分页数据源适配为Iterator，当前页遍历完后才拉取下一页
+ */
+class PageIterator<T> implements Iterator<T> {
+
+    private final PageSupplier<T> supplier;
+
+    private Iterator<T> page;
+
+    private boolean exhausted;
+
+    PageIterator(PageSupplier<T> supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!exhausted && (page == null || !page.hasNext())) {
+            List<T> next;
+            try {
+                next = supplier.nextPage();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("读取分页数据失败", e);
+            }
+            if (next == null || next.isEmpty()) {
+                exhausted = true;
+                page = null;
+            } else {
+                page = next.iterator();
+            }
+        }
+        return !exhausted;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
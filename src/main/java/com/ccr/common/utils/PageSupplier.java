@@ -0,0 +1,16 @@
+package com.ccr.common.utils;
+
+import java.util.List;
+
+/**
+ * @Description 分页数据源，导出时按需逐页拉取数据，适用于分页查询的DAO或数据库游标。
+ * 每页数据写出后即被释放，内存中同时只保留一页数据。
+ */
+public interface PageSupplier<T> {
+
+    /**
+     * @return 下一页数据，没有更多数据时返回null或空List
+     * @throws Exception 读取数据失败时抛出，导出随之终止
+     */
+    List<T> nextPage() throws Exception;
+}
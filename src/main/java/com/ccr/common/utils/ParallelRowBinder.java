@@ -0,0 +1,195 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * @Description 并行把行数据转换为对象：调用线程逐行读取单元格并按块提交，
+ * 线程池中每块独立地创建对象并赋值，再按提交顺序合并结果，因此得到的列表与顺序转换完全一致。
+ * 每块的错误只属于该块，合并时取行号最小的错误（校验导入时按顺序合并全部错误），不需要在线程之间共享可变状态。
+ * 处理中的块数有上限，已完成的块及时合并，读取比转换快时不会积压全部行的单元格内容。
+ */
+class ParallelRowBinder<T> implements Closeable {
+
+    private final Class<T> entityClass;
+
+    private final RowBinderPlan plan;
+
+    private final ExecutorService executor;
+
+    private final int blockSize;
+
+    private final int maxPendingBlocks;
+
+    /**
+     * 各字段在Excel中的列名，用于错误报告
+     */
+    private final String[] columnNames;
+
+    /**
+     * 校验导入时的错误收集器，为null时遇到错误即失败；只在调用线程中使用
+     */
+    private final ImportResult.Collector collector;
+
+    private final ArrayDeque<Future<Block<T>>> pending = new ArrayDeque<Future<Block<T>>>();
+
+    private final List<T> results = new ArrayList<T>();
+
+    private Block<T> block;
+
+    private Exception failure;
+
+    ParallelRowBinder(Class<T> entityClass, RowBinderPlan plan, ImportOptions options,
+                      String[] columnNames, ImportResult.Collector collector) {
+        this.entityClass = entityClass;
+        this.plan = plan;
+        this.executor = options.getExecutor();
+        this.blockSize = options.getParallelBlockSize();
+        this.maxPendingBlocks = options.getParallelism() * 2;
+        this.columnNames = columnNames;
+        this.collector = collector;
+        this.block = new Block<T>(blockSize);
+    }
+
+    /**
+     * @param contents 一行中各字段对应单元格的内容（未去除首尾空格），本类会持有该数组，调用方不能复用
+     * @param rowNo    行号（从1开始）
+     * @MethodName : add
+     * @Description : 加入一行，块满时提交转换；已经出错时不再提交
+     */
+    void add(String[] contents, int rowNo) throws ExcelException {
+        if (failure != null) {
+            return;
+        }
+        block.rows.add(contents);
+        block.rowNos[block.rows.size() - 1] = rowNo;
+        if (block.rows.size() >= blockSize) {
+            submit();
+        }
+    }
+
+    /**
+     * @return 按原顺序排列的全部对象
+     * @throws Exception 行号最小的转换错误
+     * @MethodName : finish
+     * @Description : 提交剩余的行并等待全部转换完成
+     */
+    List<T> finish() throws Exception {
+        if (failure == null && !block.rows.isEmpty()) {
+            submit();
+        }
+        while (failure == null && !pending.isEmpty()) {
+            merge();
+        }
+        if (failure != null) {
+            close();
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * @MethodName : close
+     * @Description : 取消尚未完成的块（导入中途失败时调用）
+     */
+    @Override
+    public void close() {
+        for (Future<Block<T>> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    private void submit() throws ExcelException {
+        final Block<T> rows = block;
+        block = new Block<T>(blockSize);
+        pending.add(executor.submit(new Callable<Block<T>>() {
+            @Override
+            public Block<T> call() throws Exception {
+                rows.entities = new ArrayList<T>(rows.rows.size());
+                for (int i = 0; i < rows.rows.size(); i++) {
+                    String[] contents = rows.rows.get(i);
+                    T entity = entityClass.cast(plan.newInstance());
+                    if (collector == null) {
+                        for (int j = 0; j < contents.length; j++) {
+                            plan.bind(entity, j, contents[j].trim());
+                        }
+                        rows.entities.add(entity);
+                    } else if (bindCollecting(entity, contents, rows.rowNos[i], rows)) {
+                        rows.entities.add(entity);
+                    }
+                }
+                // 单元格内容转换后不再需要
+                rows.rows = null;
+                return rows;
+            }
+        }));
+        // 处理中的块数达到上限时先合并最早的块
+        while (failure == null && pending.size() >= maxPendingBlocks) {
+            merge();
+        }
+    }
+
+    /**
+     * @return 该行是否全部赋值成功，失败的单元格记录到块的错误中
+     */
+    private boolean bindCollecting(T entity, String[] contents, int rowNo, Block<T> rows) {
+        boolean valid = true;
+        for (int j = 0; j < contents.length; j++) {
+            String reason = plan.tryBind(entity, j, contents[j].trim());
+            if (reason != null) {
+                valid = false;
+                if (rows.errors == null) {
+                    rows.errors = new ArrayList<CellError>();
+                }
+                rows.errors.add(new CellError(rowNo, columnNames[j], contents[j], reason));
+            }
+        }
+        return valid;
+    }
+
+    private void merge() throws ExcelException {
+        Future<Block<T>> future = pending.poll();
+        try {
+            Block<T> done = future.get();
+            results.addAll(done.entities);
+            if (done.errors != null) {
+                collector.addAll(done.errors);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelException("导入Excel被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            failure = cause instanceof Exception ? (Exception) cause : new ExcelException("导入ExceL失败", cause);
+            close();
+        }
+    }
+
+    /**
+     * 一块行数据及其转换结果
+     */
+    private static class Block<T> {
+
+        List<String[]> rows;
+
+        final int[] rowNos;
+
+        List<T> entities;
+
+        List<CellError> errors;
+
+        Block(int blockSize) {
+            this.rows = new ArrayList<String[]>(blockSize);
+            this.rowNos = new int[blockSize];
+        }
+    }
+}
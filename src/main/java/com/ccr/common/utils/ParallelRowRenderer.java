@@ -0,0 +1,135 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+import com.ccr.common.exception.ExcelRuntimeException;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * @Description 并行转换行数据：调用线程按块从数据源中拉取对象（数据源不要求线程安全），
+ * 交给线程池转换为单元格的值，再按提交顺序取回结果，因此写出的内容与顺序转换完全一致。
+ * 同时处理中的块数有上限，内存占用不随数据量增长。
+ */
+class ParallelRowRenderer<E> implements Iterator<Object[]>, Closeable {
+
+    private final Iterator<E> iterator;
+
+    private final String[] enFields;
+
+    private final ExecutorService executor;
+
+    private final int blockSize;
+
+    private final int maxPendingBlocks;
+
+    private final boolean typedCells;
+
+    /**
+     * 已提交、按数据源顺序排列的块
+     */
+    private final ArrayDeque<Future<Object[][]>> pending = new ArrayDeque<Future<Object[][]>>();
+
+    private Object[][] current;
+
+    private int position;
+
+    ParallelRowRenderer(Iterator<E> iterator, String[] enFields, ExportOptions options) {
+        this.iterator = iterator;
+        this.enFields = enFields;
+        this.executor = options.getExecutor();
+        this.blockSize = options.getParallelBlockSize();
+        this.maxPendingBlocks = options.getParallelism() * 2;
+        this.typedCells = options.isTypedCells();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (current == null || position >= current.length) {
+            submitBlocks();
+            Future<Object[][]> next = pending.poll();
+            if (next == null) {
+                current = null;
+                return false;
+            }
+            current = await(next);
+            position = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object[] row = current[position];
+        current[position++] = null;
+        return row;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @MethodName : close
+     * @Description : 取消尚未完成的块（导出中途失败时调用）
+     */
+    @Override
+    public void close() {
+        for (Future<Object[][]> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    /**
+     * @MethodName : submitBlocks
+     * @Description : 从数据源拉取对象并提交转换，直到处理中的块数达到上限或数据源没有更多数据
+     */
+    private void submitBlocks() {
+        while (pending.size() < maxPendingBlocks && iterator.hasNext()) {
+            final List<E> block = new ArrayList<E>(blockSize);
+            while (block.size() < blockSize && iterator.hasNext()) {
+                block.add(iterator.next());
+            }
+            pending.add(executor.submit(new Callable<Object[][]>() {
+                @Override
+                public Object[][] call() throws Exception {
+                    Object[][] rows = new Object[block.size()][];
+                    RowAccessorPlan plan = null;
+                    for (int i = 0; i < rows.length; i++) {
+                        rows[i] = new Object[enFields.length];
+                        plan = RowRenderer.render(block.get(i), enFields, plan, rows[i], typedCells);
+                    }
+                    return rows;
+                }
+            }));
+        }
+    }
+
+    private Object[][] await(Future<Object[][]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelRuntimeException(new ExcelException("导出Excel被中断", e));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ExcelException) {
+                throw new ExcelRuntimeException((ExcelException) cause);
+            }
+            throw new ExcelRuntimeException(new ExcelException("导出Excel失败", cause));
+        }
+    }
+}
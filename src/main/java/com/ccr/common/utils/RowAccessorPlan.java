@@ -0,0 +1,198 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Description 导出时一行数据的取值计划：按 (类, 字段路径) 预先解析好每一列的字段访问链，
+ * 访问链由 MethodHandle 组成，解析一次后缓存复用。填充单元格时不再拆分字符串、不再查找字段，
+ * 也不再重复调用 setAccessible。带路径的属性（如 college.collegeName）中间对象为 null 时返回 null。
+ * 中间字段的声明类型（接口、抽象类、Object等）中找不到后续字段时，从该字段起按中间对象的运行时类查找，
+ * 运行时类和字段对应的 MethodHandle 同样缓存。
+ */
+final class RowAccessorPlan {
+
+    /**
+     * 以类为一级键、字段路径列表为二级键的缓存
+     */
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<List<String>, RowAccessorPlan>> CACHE =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<List<String>, RowAccessorPlan>>();
+
+    /**
+     * 按运行时类查找的字段：运行时类 -> 字段名 -> 取值的 MethodHandle
+     */
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<String, MethodHandle>> RUNTIME_GETTERS =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<String, MethodHandle>>();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> beanClass;
+
+    /**
+     * 每一列对应一条访问链，链上每个 MethodHandle 的类型均为 (Object)Object；
+     * 按声明类型找不到的字段及其后的字段为 null，取值时按运行时类查找
+     */
+    private final MethodHandle[][] getterChains;
+
+    /**
+     * 每一列路径中的各个属性名
+     */
+    private final String[][] attributeChains;
+
+    private RowAccessorPlan(Class<?> beanClass, MethodHandle[][] getterChains, String[][] attributeChains) {
+        this.beanClass = beanClass;
+        this.getterChains = getterChains;
+        this.attributeChains = attributeChains;
+    }
+
+    /**
+     * @param beanClass          数据源中对象的类型
+     * @param fieldNameSequences 各列的属性名，可以是带路径的属性名，如 college.collegeName
+     * @return 取值计划
+     * @throws ExcelException 类中不存在某个字段时抛出
+     * @MethodName : of
+     * @Description : 获取（必要时编译并缓存）指定类和字段路径的取值计划
+     */
+    static RowAccessorPlan of(Class<?> beanClass, String[] fieldNameSequences) throws ExcelException {
+        ConcurrentMap<List<String>, RowAccessorPlan> plans = CACHE.get(beanClass);
+        if (plans == null) {
+            ConcurrentMap<List<String>, RowAccessorPlan> created = new ConcurrentHashMap<List<String>, RowAccessorPlan>();
+            plans = CACHE.putIfAbsent(beanClass, created);
+            if (plans == null) {
+                plans = created;
+            }
+        }
+
+        List<String> key = Arrays.asList(fieldNameSequences);
+        RowAccessorPlan plan = plans.get(key);
+        if (plan == null) {
+            // 复制一份作为缓存键，避免调用方之后修改数组影响缓存
+            key = Arrays.asList(fieldNameSequences.clone());
+            plan = compile(beanClass, fieldNameSequences);
+            RowAccessorPlan existing = plans.putIfAbsent(key, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @MethodName : compile
+     * @Description : 解析每一列的属性路径，生成访问链
+     */
+    private static RowAccessorPlan compile(Class<?> beanClass, String[] fieldNameSequences) throws ExcelException {
+        MethodHandle[][] chains = new MethodHandle[fieldNameSequences.length][];
+        String[][] attributeChains = new String[fieldNameSequences.length][];
+        for (int i = 0; i < fieldNameSequences.length; i++) {
+            String[] attributes = fieldNameSequences[i].split("\\.");
+            MethodHandle[] chain = new MethodHandle[attributes.length];
+            Class<?> ownerClass = beanClass;
+            for (int j = 0; j < attributes.length; j++) {
+                Field field = ExcelUtils.getFieldByName(attributes[j], ownerClass);
+                if (field == null) {
+                    // 中间对象的运行时类可能是声明类型的子类，取值时再按运行时类查找
+                    if (j > 0) {
+                        break;
+                    }
+                    throw new ExcelException(ownerClass.getSimpleName() + "类不存在字段名" + attributes[j]);
+                }
+                chain[j] = getter(field, ownerClass);
+                ownerClass = field.getType();
+            }
+            chains[i] = chain;
+            attributeChains[i] = attributes;
+        }
+        return new RowAccessorPlan(beanClass, chains, attributeChains);
+    }
+
+    /**
+     * @param ownerClass 查找字段的类，用于错误信息
+     * @return 字段取值的 MethodHandle，类型为 (Object)Object
+     */
+    private static MethodHandle getter(Field field, Class<?> ownerClass) throws ExcelException {
+        field.setAccessible(true);
+        try {
+            return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new ExcelException("无法访问" + ownerClass.getSimpleName() + "类的字段" + field.getName(), e);
+        }
+    }
+
+    /**
+     * @param runtimeClass 中间对象的运行时类
+     * @param attribute    字段名
+     * @return 字段取值的 MethodHandle
+     * @throws ExcelException 运行时类中也不存在该字段时抛出
+     * @MethodName : runtimeGetter
+     * @Description : 按中间对象的运行时类查找字段（缓存）
+     */
+    private static MethodHandle runtimeGetter(Class<?> runtimeClass, String attribute) throws ExcelException {
+        ConcurrentMap<String, MethodHandle> getters = RUNTIME_GETTERS.get(runtimeClass);
+        if (getters == null) {
+            ConcurrentMap<String, MethodHandle> created = new ConcurrentHashMap<String, MethodHandle>();
+            getters = RUNTIME_GETTERS.putIfAbsent(runtimeClass, created);
+            if (getters == null) {
+                getters = created;
+            }
+        }
+        MethodHandle getter = getters.get(attribute);
+        if (getter == null) {
+            Field field = ExcelUtils.getFieldByName(attribute, runtimeClass);
+            if (field == null) {
+                throw new ExcelException(runtimeClass.getSimpleName() + "类不存在字段名" + attribute);
+            }
+            getter = getter(field, runtimeClass);
+            getters.putIfAbsent(attribute, getter);
+        }
+        return getter;
+    }
+
+    /**
+     * @return 该计划适用的类
+     */
+    Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    /**
+     * @return 列数
+     */
+    int size() {
+        return getterChains.length;
+    }
+
+    /**
+     * @param bean   对象
+     * @param column 列号（与编译时传入的字段路径数组下标一致）
+     * @return 属性值，路径上任何一个对象为 null 时返回 null
+     * @throws ExcelException
+     * @MethodName : getValue
+     * @Description : 获取指定列的属性值
+     */
+    Object getValue(Object bean, int column) throws ExcelException {
+        Object value = bean;
+        MethodHandle[] chain = getterChains[column];
+        try {
+            for (int i = 0; i < chain.length && value != null; i++) {
+                MethodHandle getter = chain[i] != null ? chain[i] : runtimeGetter(value.getClass(), attributeChains[column][i]);
+                value = (Object) getter.invokeExact(value);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (ExcelException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ExcelException("获取" + beanClass.getSimpleName() + "类的属性值失败", t);
+        }
+        return value;
+    }
+}
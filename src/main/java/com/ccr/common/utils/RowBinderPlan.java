@@ -0,0 +1,652 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+import com.ccr.common.exception.InvalidCellException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Description 导入时一行数据的赋值计划：按 (实体类, 字段列表) 预先解析好每一列的目标字段，
+ * 并根据字段类型选定专用的转换与赋值方式，解析一次后缓存复用。
+ * 基本类型字段通过精确类型的 MethodHandle 直接写入，不经过装箱。
+ */
+final class RowBinderPlan {
+
+    /**
+     * 日期单元格的默认格式，DateTimeFormatter 不可变，可在线程间共享。
+     * 解析规则与原来的SimpleDateFormat("MM/dd/yyyy HH:mm")一致（宽松模式）：各字段位数不限，
+     * 超出范围的值顺延（如13月为次年1月），解析到分钟即可，之后多余的内容忽略
+     */
+    static final DateTimeFormatter DATE_FORMATTER = new DateTimeFormatterBuilder()
+            .parseLenient()
+            .appendPattern("M/d/yyyy H:mm")
+            .toFormatter()
+            .withResolverStyle(ResolverStyle.LENIENT);
+
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<List<String>, RowBinderPlan>> CACHE =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<List<String>, RowBinderPlan>>();
+
+    /**
+     * 按字段类型全局注册的转换器
+     */
+    private static final ConcurrentMap<Class<?>, CellConverter<?>> TYPE_CONVERTERS =
+            new ConcurrentHashMap<Class<?>, CellConverter<?>>();
+
+    /**
+     * 类型转换器的注册次数，缓存了赋值计划的地方据此判断计划是否过期
+     */
+    private static volatile int generation;
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private final Class<?> entityClass;
+
+    private final MethodHandle constructor;
+
+    private final FieldBinder[] binders;
+
+    private RowBinderPlan(Class<?> entityClass, MethodHandle constructor, FieldBinder[] binders) {
+        this.entityClass = entityClass;
+        this.constructor = constructor;
+        this.binders = binders;
+    }
+
+    /**
+     * @param type      字段类型
+     * @param converter 转换器
+     * @MethodName : registerConverter
+     * @Description : 注册某一字段类型的全局转换器，已缓存的赋值计划会失效并在下次导入时重新编译
+     */
+    static <T> void registerConverter(Class<T> type, CellConverter<? extends T> converter) {
+        TYPE_CONVERTERS.put(type, converter);
+        CACHE.clear();
+        generation++;
+    }
+
+    /**
+     * @return 类型转换器的注册次数
+     */
+    static int generation() {
+        return generation;
+    }
+
+    /**
+     * @param entityClass 实体类
+     * @param fieldNames  各列对应的英文属性名
+     * @return 赋值计划
+     * @throws ExcelException 实体类中不存在某个字段或无法实例化时抛出
+     * @MethodName : of
+     * @Description : 获取（必要时编译并缓存）指定实体类和字段列表的赋值计划
+     */
+    static RowBinderPlan of(Class<?> entityClass, String[] fieldNames) throws ExcelException {
+        ConcurrentMap<List<String>, RowBinderPlan> plans = CACHE.get(entityClass);
+        if (plans == null) {
+            ConcurrentMap<List<String>, RowBinderPlan> created = new ConcurrentHashMap<List<String>, RowBinderPlan>();
+            plans = CACHE.putIfAbsent(entityClass, created);
+            if (plans == null) {
+                plans = created;
+            }
+        }
+
+        List<String> key = Arrays.asList(fieldNames);
+        RowBinderPlan plan = plans.get(key);
+        if (plan == null) {
+            key = Arrays.asList(fieldNames.clone());
+            plan = compile(entityClass, fieldNames, null);
+            RowBinderPlan existing = plans.putIfAbsent(key, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @param entityClass      实体类
+     * @param fieldNames       各列对应的英文属性名
+     * @param columnConverters 按英文属性名指定的转换器，优先于按类型注册的转换器；为空时使用缓存的计划
+     * @return 赋值计划
+     * @throws ExcelException
+     * @MethodName : of
+     * @Description : 获取带列转换器的赋值计划，列转换器由调用方决定，因此这类计划不进入缓存
+     */
+    static RowBinderPlan of(Class<?> entityClass, String[] fieldNames, Map<String, CellConverter<?>> columnConverters) throws ExcelException {
+        if (columnConverters == null || columnConverters.isEmpty()) {
+            return of(entityClass, fieldNames);
+        }
+        return compile(entityClass, fieldNames, columnConverters);
+    }
+
+    /**
+     * @MethodName : compile
+     * @Description : 解析每一列的目标字段并选定转换方式
+     */
+    private static RowBinderPlan compile(Class<?> entityClass, String[] fieldNames, Map<String, CellConverter<?>> columnConverters) throws ExcelException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle constructor;
+        try {
+            Constructor<?> ctor = entityClass.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            constructor = lookup.unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+        } catch (Exception e) {
+            throw new ExcelException(entityClass.getSimpleName() + "类缺少无参构造方法", e);
+        }
+
+        FieldBinder[] binders = new FieldBinder[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            Field field = ExcelUtils.getFieldByName(fieldNames[i], entityClass);
+            if (field == null) {
+                throw new ExcelException(entityClass.getSimpleName() + "类不存在字段名" + fieldNames[i]);
+            }
+            field.setAccessible(true);
+            MethodHandle setter;
+            try {
+                setter = lookup.unreflectSetter(field);
+            } catch (IllegalAccessException e) {
+                throw new ExcelException("无法访问" + entityClass.getSimpleName() + "类的字段" + fieldNames[i], e);
+            }
+
+            CellConverter<?> converter = columnConverters == null ? null : columnConverters.get(fieldNames[i]);
+            if (converter == null) {
+                converter = TYPE_CONVERTERS.get(field.getType());
+            }
+            if (converter != null) {
+                binders[i] = new ConverterBinder(setter, converter);
+            } else {
+                binders[i] = createBinder(field.getType(), setter);
+                binders[i].contentCheck = ContentCheck.of(field.getType());
+            }
+        }
+        return new RowBinderPlan(entityClass, constructor, binders);
+    }
+
+    /**
+     * @MethodName : createBinder
+     * @Description : 根据字段类型选定内置的转换方式
+     */
+    private static FieldBinder createBinder(Class<?> fieldType, MethodHandle setter) {
+        if (String.class == fieldType) {
+            return new ObjectBinder(setter) {
+                @Override
+                Object convert(String content) {
+                    return content;
+                }
+            };
+        } else if (Integer.TYPE == fieldType) {
+            return new IntBinder(setter);
+        } else if (Long.TYPE == fieldType) {
+            return new LongBinder(setter);
+        } else if (Double.TYPE == fieldType) {
+            return new DoubleBinder(setter);
+        } else if (Float.TYPE == fieldType) {
+            return new FloatBinder(setter);
+        } else if (Short.TYPE == fieldType) {
+            return new ShortBinder(setter);
+        } else if (Character.TYPE == fieldType) {
+            return new CharBinder(setter);
+        } else if (Integer.class == fieldType) {
+            return new ObjectBinder(setter) {
+                @Override
+                Object convert(String content) {
+                    return Integer.valueOf(content);
+                }
+            };
+        } else if (Long.class == fieldType) {
+            return new ObjectBinder(setter) {
+                @Override
+                Object convert(String content) {
+                    return Long.valueOf(content);
+                }
+            };
+        } else if (Double.class == fieldType) {
+            return new ObjectBinder(setter) {
+                @Override
+                Object convert(String content) {
+                    return Double.valueOf(content);
+                }
+            };
+        } else if (Float.class == fieldType) {
+            return new ObjectBinder(setter) {
+                @Override
+                Object convert(String content) {
+                    return Float.valueOf(content);
+                }
+            };
+        } else if (Short.class == fieldType) {
+            return new ObjectBinder(setter) {
+                @Override
+                Object convert(String content) {
+                    return Short.valueOf(content);
+                }
+            };
+        } else if (Date.class == fieldType) {
+            return new ObjectBinder(setter) {
+                @Override
+                Object convert(String content) {
+                    LocalDateTime dateTime = parseDate(content);
+                    if (dateTime == null) {
+                        throw new DateTimeParseException(ContentCheck.DATE_REASON, content, 0);
+                    }
+                    return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+                }
+            };
+        } else if (BigDecimal.class == fieldType) {
+            return new ObjectBinder(setter) {
+                @Override
+                Object convert(String content) {
+                    return new BigDecimal(content);
+                }
+            };
+        } else {
+            return new ObjectBinder(setter) {
+                @Override
+                Object convert(String content) {
+                    return content;
+                }
+            };
+        }
+    }
+
+    /**
+     * @return 该计划适用的实体类
+     */
+    Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * @return 列数
+     */
+    int size() {
+        return binders.length;
+    }
+
+    /**
+     * @return 新建的实体对象
+     * @throws Exception
+     * @MethodName : newInstance
+     * @Description : 通过缓存的无参构造方法新建实体对象
+     */
+    Object newInstance() throws Exception {
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ExcelException("创建" + entityClass.getSimpleName() + "对象失败", t);
+        }
+    }
+
+    /**
+     * @param entity  实体对象
+     * @param column  列号（与编译时传入的字段数组下标一致）
+     * @param content 单元格内容
+     * @throws Exception 内容无法转换时抛出
+     * @MethodName : bind
+     * @Description : 将单元格内容转换后写入实体对象的对应字段
+     */
+    void bind(Object entity, int column, String content) throws Exception {
+        try {
+            binders[column].bind(entity, content);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ExcelException("给" + entityClass.getSimpleName() + "类的字段赋值失败", t);
+        }
+    }
+
+    /**
+     * @param content 单元格内容
+     * @return 解析得到的时间，内容无效时返回null（不抛出异常）
+     * @MethodName : parseDate
+     * @Description : 按默认日期格式宽松解析：先只按格式切分出各字段，再从公元1年1月1日起依次累加，
+     * 与SimpleDateFormat宽松模式下超出范围的值顺延的结果相同
+     */
+    static LocalDateTime parseDate(String content) {
+        ParsePosition position = new ParsePosition(0);
+        TemporalAccessor fields = DATE_FORMATTER.parseUnresolved(content, position);
+        if (fields == null || position.getErrorIndex() >= 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(1, 1, 1, 0, 0)
+                    .plusYears(fields.getLong(ChronoField.YEAR_OF_ERA) - 1)
+                    .plusMonths(fields.getLong(ChronoField.MONTH_OF_YEAR) - 1)
+                    .plusDays(fields.getLong(ChronoField.DAY_OF_MONTH) - 1)
+                    .plusHours(fields.getLong(ChronoField.HOUR_OF_DAY))
+                    .plusMinutes(fields.getLong(ChronoField.MINUTE_OF_HOUR));
+        } catch (DateTimeException e) {
+            // 年份超出范围
+            return null;
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param entity  实体对象
+     * @param column  列号（与编译时传入的字段数组下标一致）
+     * @param content 单元格内容
+     * @return 内容无法转换时的原因，赋值成功时返回null
+     * @MethodName : tryBind
+     * @Description : 校验导入时使用的赋值方式：内置类型先做一次不抛异常的格式检查，
+     * 错误内容不会产生异常及其调用栈；只有格式检查无法确定的内容（如自定义转换器）才捕获异常
+     */
+    String tryBind(Object entity, int column, String content) {
+        FieldBinder binder = binders[column];
+        String reason = binder.contentCheck.check(content);
+        if (reason != null) {
+            return reason;
+        }
+        try {
+            binder.bind(entity, content);
+            return null;
+        } catch (InvalidCellException e) {
+            return e.getMessage();
+        } catch (NumberFormatException e) {
+            return "不是有效的数字";
+        } catch (DateTimeParseException e) {
+            return ContentCheck.DATE_REASON;
+        } catch (Throwable t) {
+            return t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * 内置类型的格式检查，只判断一定无法转换的内容，返回null表示交给转换方法处理
+     */
+    private enum ContentCheck {
+
+        NONE {
+            @Override
+            String check(String content) {
+                return null;
+            }
+        },
+        INT {
+            @Override
+            String check(String content) {
+                return checkInteger(content, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            }
+        },
+        LONG {
+            @Override
+            String check(String content) {
+                return checkInteger(content, Long.MIN_VALUE, Long.MAX_VALUE);
+            }
+        },
+        SHORT {
+            @Override
+            String check(String content) {
+                return checkInteger(content, Short.MIN_VALUE, Short.MAX_VALUE);
+            }
+        },
+        DECIMAL {
+            @Override
+            String check(String content) {
+                return isPlainDecimal(content) ? null : "不是有效的数字";
+            }
+        },
+        FLOATING {
+            @Override
+            String check(String content) {
+                // Double.parseDouble还接受NaN、十六进制等写法，只拦截空内容，其他不符合普通写法的内容交给转换方法判断
+                return content.length() == 0 ? "不是有效的数字" : null;
+            }
+        },
+        DATE {
+            @Override
+            String check(String content) {
+                return parseDate(content) == null ? DATE_REASON : null;
+            }
+        };
+
+        static final String DATE_REASON = "不是有效的日期";
+
+        abstract String check(String content);
+
+        static ContentCheck of(Class<?> fieldType) {
+            if (Integer.TYPE == fieldType || Integer.class == fieldType) {
+                return INT;
+            } else if (Long.TYPE == fieldType || Long.class == fieldType) {
+                return LONG;
+            } else if (Short.TYPE == fieldType || Short.class == fieldType) {
+                return SHORT;
+            } else if (BigDecimal.class == fieldType) {
+                return DECIMAL;
+            } else if (Double.TYPE == fieldType || Double.class == fieldType
+                    || Float.TYPE == fieldType || Float.class == fieldType) {
+                return FLOATING;
+            } else if (Date.class == fieldType) {
+                return DATE;
+            }
+            return NONE;
+        }
+
+        /**
+         * @return 与Long.parseLong规则一致的整数检查（可带正负号），超出范围时返回原因
+         */
+        private static String checkInteger(String content, long min, long max) {
+            int length = content.length();
+            int start = length > 0 && (content.charAt(0) == '-' || content.charAt(0) == '+') ? 1 : 0;
+            if (start == length) {
+                return "不是有效的整数";
+            }
+            boolean negative = content.charAt(0) == '-';
+            // 与Long.parseLong相同，按负数累加，避免Long.MIN_VALUE溢出
+            long limit = negative ? min : -max;
+            long multmin = limit / 10;
+            long value = 0;
+            for (int i = start; i < length; i++) {
+                int digit = Character.digit(content.charAt(i), 10);
+                if (digit < 0) {
+                    return "不是有效的整数";
+                }
+                if (value < multmin) {
+                    return "超出取值范围";
+                }
+                value *= 10;
+                if (value < limit + digit) {
+                    return "超出取值范围";
+                }
+                value -= digit;
+            }
+            return null;
+        }
+
+        /**
+         * @return 是否为BigDecimal可以转换的普通写法：[+-]数字[.数字][e[+-]数字]
+         */
+        private static boolean isPlainDecimal(String content) {
+            int length = content.length();
+            int i = length > 0 && (content.charAt(0) == '-' || content.charAt(0) == '+') ? 1 : 0;
+            int digits = 0;
+            while (i < length && Character.isDigit(content.charAt(i))) {
+                i++;
+                digits++;
+            }
+            if (i < length && content.charAt(i) == '.') {
+                i++;
+                while (i < length && Character.isDigit(content.charAt(i))) {
+                    i++;
+                    digits++;
+                }
+            }
+            if (digits == 0) {
+                return false;
+            }
+            if (i < length && (content.charAt(i) == 'e' || content.charAt(i) == 'E')) {
+                i++;
+                if (i < length && (content.charAt(i) == '-' || content.charAt(i) == '+')) {
+                    i++;
+                }
+                int exponentDigits = 0;
+                while (i < length && Character.isDigit(content.charAt(i))) {
+                    i++;
+                    exponentDigits++;
+                }
+                if (exponentDigits == 0) {
+                    return false;
+                }
+            }
+            return i == length;
+        }
+    }
+
+    /**
+     * 单个字段的转换与赋值
+     */
+    private abstract static class FieldBinder {
+
+        /**
+         * 校验导入时使用的格式检查
+         */
+        ContentCheck contentCheck = ContentCheck.NONE;
+
+        abstract void bind(Object target, String content) throws Throwable;
+    }
+
+    /**
+     * 引用类型字段：转换后通过 (Object,Object)void 的 setter 写入
+     */
+    private abstract static class ObjectBinder extends FieldBinder {
+
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final MethodHandle setter;
+
+        ObjectBinder(MethodHandle setter) {
+            this.setter = setter.asType(SETTER_TYPE);
+        }
+
+        abstract Object convert(String content) throws Exception;
+
+        @Override
+        void bind(Object target, String content) throws Throwable {
+            setter.invokeExact(target, convert(content));
+        }
+    }
+
+    private static final class ConverterBinder extends ObjectBinder {
+
+        private final CellConverter<?> converter;
+
+        ConverterBinder(MethodHandle setter, CellConverter<?> converter) {
+            super(setter);
+            this.converter = converter;
+        }
+
+        @Override
+        Object convert(String content) throws Exception {
+            return converter.convert(content);
+        }
+    }
+
+    private static final class IntBinder extends FieldBinder {
+
+        private final MethodHandle setter;
+
+        IntBinder(MethodHandle setter) {
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+        }
+
+        @Override
+        void bind(Object target, String content) throws Throwable {
+            setter.invokeExact(target, Integer.parseInt(content));
+        }
+    }
+
+    private static final class LongBinder extends FieldBinder {
+
+        private final MethodHandle setter;
+
+        LongBinder(MethodHandle setter) {
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+        }
+
+        @Override
+        void bind(Object target, String content) throws Throwable {
+            setter.invokeExact(target, Long.parseLong(content));
+        }
+    }
+
+    private static final class DoubleBinder extends FieldBinder {
+
+        private final MethodHandle setter;
+
+        DoubleBinder(MethodHandle setter) {
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, double.class));
+        }
+
+        @Override
+        void bind(Object target, String content) throws Throwable {
+            setter.invokeExact(target, Double.parseDouble(content));
+        }
+    }
+
+    private static final class FloatBinder extends FieldBinder {
+
+        private final MethodHandle setter;
+
+        FloatBinder(MethodHandle setter) {
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, float.class));
+        }
+
+        @Override
+        void bind(Object target, String content) throws Throwable {
+            setter.invokeExact(target, Float.parseFloat(content));
+        }
+    }
+
+    private static final class ShortBinder extends FieldBinder {
+
+        private final MethodHandle setter;
+
+        ShortBinder(MethodHandle setter) {
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, short.class));
+        }
+
+        @Override
+        void bind(Object target, String content) throws Throwable {
+            setter.invokeExact(target, Short.parseShort(content));
+        }
+    }
+
+    private static final class CharBinder extends FieldBinder {
+
+        private final MethodHandle setter;
+
+        CharBinder(MethodHandle setter) {
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, char.class));
+        }
+
+        @Override
+        void bind(Object target, String content) throws Throwable {
+            // 空单元格不赋值，保留字段默认值
+            if (content.length() > 0) {
+                setter.invokeExact(target, content.charAt(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+import com.ccr.common.exception.ExcelRuntimeException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @Description 把数据源中的对象逐个转换为一行单元格的值（取属性值并转换为写出时的形式）。
+ * 顺序转换时复用同一个数组，写入器不会持有该数组。
+ */
+class RowRenderer<E> implements Iterator<Object[]> {
+
+    /**
+     * Excel能精确表示的整数上限（15位有效数字）
+     */
+    private static final long MAX_EXACT = 1000000000000000L;
+
+    private final Iterator<E> iterator;
+
+    private final String[] enFields;
+
+    private final Object[] values;
+
+    private final boolean typedCells;
+
+    private RowAccessorPlan plan;
+
+    RowRenderer(Iterator<E> iterator, String[] enFields, ExportOptions options) {
+        this.iterator = iterator;
+        this.enFields = enFields;
+        this.values = new Object[enFields.length];
+        this.typedCells = options.isTypedCells();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterator.hasNext();
+    }
+
+    @Override
+    public Object[] next() {
+        if (!iterator.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            plan = render(iterator.next(), enFields, plan, values, typedCells);
+        } catch (ExcelException e) {
+            throw new ExcelRuntimeException(e);
+        }
+        return values;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @param item       数据源中的对象
+     * @param enFields   各列的属性名
+     * @param plan       上一次使用的取值计划，对象类型相同时直接复用
+     * @param values     存放结果的数组
+     * @param typedCells 是否按类型写出
+     * @return 本次使用的取值计划
+     * @throws ExcelException
+     * @MethodName : render
+     * @Description : 把一个对象转换为一行单元格的值
+     */
+    static RowAccessorPlan render(Object item, String[] enFields, RowAccessorPlan plan, Object[] values, boolean typedCells) throws ExcelException {
+        // 取值计划按对象的实际类型编译并缓存，循环中不再拆分属性路径和查找字段
+        if (item != null && (plan == null || plan.getBeanClass() != item.getClass())) {
+            plan = RowAccessorPlan.of(item.getClass(), enFields);
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = renderValue(item == null ? null : plan.getValue(item, i), typedCells);
+        }
+        return plan;
+    }
+
+    /**
+     * @param value      属性值
+     * @param typedCells 是否按类型写出
+     * @return 写出时使用的值
+     * @MethodName : renderValue
+     * @Description : 把属性值转换为写出时的形式，null写为空字符串；
+     * 按类型写出时数字、日期（包括LocalDate、LocalDateTime）、布尔值保留原类型，其他值写为toString()的结果。
+     * Excel的数字只有15位有效数字，超出的整数（如长编号）和高精度小数仍写为文本，避免精度丢失
+     */
+    static Object renderValue(Object value, boolean typedCells) {
+        if (value == null) {
+            return "";
+        }
+        if (typedCells) {
+            if (value instanceof Number) {
+                return isExactInExcel((Number) value) ? value : value.toString();
+            }
+            if (value instanceof Date || value instanceof Boolean) {
+                return value;
+            }
+            if (value instanceof LocalDateTime) {
+                return Date.from(((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant());
+            }
+            if (value instanceof LocalDate) {
+                return Date.from(((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            }
+        }
+        return value.toString();
+    }
+
+    private static boolean isExactInExcel(Number number) {
+        if (number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return true;
+        }
+        if (number instanceof Long) {
+            long l = (Long) number;
+            return l > -MAX_EXACT && l < MAX_EXACT;
+        }
+        if (number instanceof Double || number instanceof Float) {
+            double d = number.doubleValue();
+            return !Double.isNaN(d) && !Double.isInfinite(d);
+        }
+        if (number instanceof BigDecimal) {
+            return ((BigDecimal) number).precision() <= 15;
+        }
+        if (number instanceof BigInteger) {
+            return ((BigInteger) number).bitLength() < 50;
+        }
+        double d = number.doubleValue();
+        return !Double.isNaN(d) && !Double.isInfinite(d) && Math.abs(d) < MAX_EXACT;
+    }
+}
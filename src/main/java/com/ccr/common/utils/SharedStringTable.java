@@ -0,0 +1,133 @@
+package com.ccr.common.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description 导出时的共享字符串表：相同的文本只保存一次并分配一个序号。
+ * 每列的前N个值作为抽样，抽样中不重复的文本超过一半的列（如编号、姓名）视为高基数列，
+ * 之后该列的文本不再进入表中；表中的字符串个数达到上限后也不再加入新的文本，
+ * 因此无论导出多少行，表占用的内存都有上限。只在一次导出的写出线程中使用，不是线程安全的。
+ */
+class SharedStringTable {
+
+    private final int limit;
+
+    private final int sampleRows;
+
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+    private final List<String> strings = new ArrayList<String>();
+
+    /**
+     * 各列已抽样的值个数
+     */
+    private int[] sampled = new int[0];
+
+    /**
+     * 各列抽样期间新加入表中的文本个数
+     */
+    private int[] added = new int[0];
+
+    /**
+     * 各列是否已判断为高基数列
+     */
+    private boolean[] inline = new boolean[0];
+
+    /**
+     * 通过序号引用表中文本的次数
+     */
+    private long references;
+
+    /**
+     * @param limit      最多保存的字符串个数
+     * @param sampleRows 每列抽样的值个数
+     */
+    SharedStringTable(int limit, int sampleRows) {
+        this.limit = limit;
+        this.sampleRows = Math.max(sampleRows, 1);
+    }
+
+    /**
+     * @param options 导出选项
+     * @return 共享字符串表，选项中关闭了共享字符串表时返回null
+     */
+    static SharedStringTable of(ExportOptions options) {
+        return options.getSharedStringsLimit() > 0
+                ? new SharedStringTable(options.getSharedStringsLimit(), options.getSharedStringsSampleRows())
+                : null;
+    }
+
+    /**
+     * @param col  列号
+     * @param text 文本
+     * @return 文本在表中的序号，该列为高基数列或表已满时返回-1（按原方式写出）
+     * @MethodName : indexOf
+     * @Description : 查找或加入文本，同时统计该列的重复程度
+     */
+    int indexOf(int col, String text) {
+        if (col >= inline.length) {
+            int size = Math.max(col + 1, inline.length * 2);
+            sampled = Arrays.copyOf(sampled, size);
+            added = Arrays.copyOf(added, size);
+            inline = Arrays.copyOf(inline, size);
+        }
+        if (inline[col]) {
+            return -1;
+        }
+        Integer index = indexes.get(text);
+        if (index == null) {
+            if (strings.size() >= limit) {
+                return -1;
+            }
+            index = strings.size();
+            strings.add(text);
+            indexes.put(text, index);
+            if (sampled[col] < sampleRows) {
+                added[col]++;
+            }
+        }
+        if (sampled[col] < sampleRows && ++sampled[col] == sampleRows && added[col] * 2 > sampleRows) {
+            inline[col] = true;
+        }
+        references++;
+        return index;
+    }
+
+    /**
+     * @param col  列号
+     * @param text 文本
+     * @return 表中与之相同的字符串对象，不进入表的文本原样返回
+     * @MethodName : intern
+     * @Description : 让重复的文本共用同一个String对象，原来的对象可以立即回收
+     */
+    String intern(int col, String text) {
+        int index = indexOf(col, text);
+        return index < 0 ? text : strings.get(index);
+    }
+
+    /**
+     * @return 表中的字符串个数
+     */
+    int size() {
+        return strings.size();
+    }
+
+    /**
+     * @param index 序号
+     * @return 该序号对应的文本
+     */
+    String get(int index) {
+        return strings.get(index);
+    }
+
+    /**
+     * @return 通过序号引用表中文本的次数
+     */
+    long getReferences() {
+        return references;
+    }
+}
@@ -0,0 +1,362 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.DuplicateRowException;
+import com.ccr.common.exception.ExcelException;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description 逐行把工作表转换为实体对象：先解析列头，之后每调用一次next()读取并转换一行，
+ * 遇到第一个空行即认为数据结束，与excelToList统计有效行数的规则一致。
+ * 解析列头后只读取列结构和业务主键用到的列；按导入选项跳过开头的行（只判断是否为空行），
+ * 达到最多导入的行数后不再读取。
+ * 逐行导入（next）时发现第一处重复即停止；一次读取全部行（readAll）时检查完所有行再报告全部重复的行，并可以并行转换。
+ */
+class SheetImporter<T> {
+
+    private final SheetRowReader reader;
+
+    private final Class<T> entityClass;
+
+    private final ExcelSchema schema;
+
+    private final String[] uniqueFields;
+
+    private final ImportOptions options;
+
+    private final MetricsRecorder metrics;
+
+    private RowBinderPlan plan;
+
+    /**
+     * 列结构中各字段在Excel中的列号，与plan中的字段顺序一致
+     */
+    private int[] cols;
+
+    private int[] uniqueCols;
+
+    /**
+     * 已读取行的业务主键索引，紧凑模式下用第二个指纹确认重复
+     */
+    private DuplicateKeyIndex uniqueKeys;
+
+    private int dataRows;
+
+    /**
+     * 按导入选项跳过的数据行数
+     */
+    private int skippedRows;
+
+    private boolean finished;
+
+    SheetImporter(SheetRowReader reader, Class<T> entityClass, ExcelSchema schema,
+                  String[] uniqueFields, ImportOptions options, MetricsRecorder metrics) {
+        this.reader = reader;
+        this.entityClass = entityClass;
+        this.schema = schema;
+        this.uniqueFields = uniqueFields == null ? new String[0] : uniqueFields;
+        this.options = options;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @throws Exception
+     * @MethodName : readHeader
+     * @Description : 读取第一行作为列名，检查需要的字段在Excel中是否都存在，并准备好赋值计划
+     */
+    void readHeader() throws Exception {
+        long mark = metrics.mark();
+        String[] firstRow = reader.nextRow();
+        mark = metrics.lap(ExcelPhase.PARSE, mark);
+        if (firstRow == null || isBlank(firstRow)) {
+            throw new ExcelException("Excel文件中没有任何数据");
+        }
+
+        // 将列名和列号放入Map中，这样通过列名就可以拿到列号
+        Map<String, Integer> colMap = new HashMap<String, Integer>();
+        for (int i = 0; i < firstRow.length; i++) {
+            colMap.put(firstRow[i].trim(), i);
+        }
+
+        // 判断需要的字段在Excel中是否都存在
+        int size = schema.size();
+        cols = new int[size];
+        for (int j = 0; j < size; j++) {
+            Integer col = colMap.get(schema.getHeader(j));
+            // 如果有列名不存在或不匹配，则抛出异常并提示错误
+            if (col == null) {
+                throw new ExcelException("Excel中缺少必要的字段，或字段名称有误");
+            }
+            cols[j] = col;
+        }
+
+        uniqueCols = new int[uniqueFields.length];
+        for (int i = 0; i < uniqueFields.length; i++) {
+            Integer col = colMap.get(uniqueFields[i]);
+            if (col == null) {
+                throw new ExcelException("Excel中缺少业务主键字段" + uniqueFields[i]);
+            }
+            uniqueCols[i] = col;
+        }
+        if (uniqueCols.length > 0) {
+            uniqueKeys = new DuplicateKeyIndex(options.isCompactUniqueIndex());
+        }
+        mark = metrics.lap(ExcelPhase.VALIDATE, mark);
+
+        // 跳过开头的行时不读取任何列的内容，之后只读取需要的列
+        if (options.getRowOffset() > 0) {
+            reader.setColumns(SheetRowReader.NO_COLUMNS);
+            skipRows(options.getRowOffset());
+            mark = metrics.lap(ExcelPhase.PARSE, mark);
+        }
+        reader.setColumns(neededColumns());
+
+        plan = schema.binderPlan(entityClass, options);
+        metrics.lap(ExcelPhase.BIND, mark);
+    }
+
+    /**
+     * @return 下一行转换得到的实体对象，数据结束时返回null
+     * @throws Exception 内容无法转换或有重复行时抛出
+     * @MethodName : next
+     * @Description : 读取并转换下一行
+     */
+    T next() throws Exception {
+        String[] row = readRow();
+        if (row == null) {
+            return null;
+        }
+        long mark = metrics.mark();
+        if (uniqueKeys != null) {
+            checkUnique(row);
+            mark = metrics.lap(ExcelPhase.VALIDATE, mark);
+        }
+
+        T entity = entityClass.cast(plan.newInstance());
+        for (int j = 0; j < cols.length; j++) {
+            plan.bind(entity, j, cell(row, cols[j]).trim());
+        }
+        metrics.lap(ExcelPhase.BIND, mark);
+        return entity;
+    }
+
+    /**
+     * @param collector 错误收集器，为null时遇到错误即抛出异常，否则记录错误并跳过有错误的行
+     * @return 转换得到的对象，按行的顺序排列
+     * @throws Exception 有重复行时抛出DuplicateRowException，其中包含所有重复的行；
+     *                   没有重复行时抛出第一个无法转换的内容的异常
+     * @MethodName : readAll
+     * @Description : 读取并转换剩余的全部行，excelToList、excelToResult对所有格式都使用这一方法：
+     * 检查完所有行再报告全部重复的行（重复优先于转换错误），导入选项的并行度大于1时在线程池中并行转换
+     */
+    List<T> readAll(ImportResult.Collector collector) throws Exception {
+        List<T> resultList = new ArrayList<T>();
+        String[] columnNames = schema.headers();
+        // 开启并行时调用线程只读取行，转换交给线程池，结果按原顺序合并
+        ParallelRowBinder<T> binder = options.getParallelism() > 1
+                ? new ParallelRowBinder<T>(entityClass, plan, options, columnNames, collector) : null;
+        try {
+            // 有重复行时优先报告重复行，因此赋值出错后只继续检查业务主键
+            Exception bindError = null;
+            while (true) {
+                // 错误数达到上限后停止检查
+                if (collector != null && collector.isFull()) {
+                    collector.setTruncated();
+                    break;
+                }
+                String[] row = readRow();
+                if (row == null) {
+                    break;
+                }
+                int rowNo = reader.getRowIndex() + 1;
+                long mark = metrics.mark();
+
+                if (uniqueKeys != null) {
+                    String[] key = readKey(row);
+                    int sameRow = uniqueKeys.add(key, rowNo);
+                    mark = metrics.lap(ExcelPhase.VALIDATE, mark);
+                    // 校验导入时重复的行记为错误，不再转换
+                    if (collector != null && sameRow > 0) {
+                        collector.add(new CellError(rowNo, StringUtils.join(uniqueFields, "+"),
+                                StringUtils.join(key, "+"), "与第" + sameRow + "行重复"));
+                        continue;
+                    }
+                }
+
+                String[] contents = new String[cols.length];
+                for (int j = 0; j < cols.length; j++) {
+                    contents[j] = cell(row, cols[j]);
+                }
+                if (binder != null) {
+                    binder.add(contents, rowNo);
+                    continue;
+                }
+                if (bindError != null) {
+                    continue;
+                }
+
+                // 新建要转换的对象并给对象中的字段赋值
+                T entity = entityClass.cast(plan.newInstance());
+                if (collector != null) {
+                    boolean valid = true;
+                    for (int j = 0; j < cols.length; j++) {
+                        String reason = plan.tryBind(entity, j, contents[j].trim());
+                        if (reason != null) {
+                            valid = false;
+                            collector.add(new CellError(rowNo, columnNames[j], contents[j], reason));
+                        }
+                    }
+                    if (valid) {
+                        resultList.add(entity);
+                    }
+                } else {
+                    try {
+                        for (int j = 0; j < cols.length; j++) {
+                            plan.bind(entity, j, contents[j].trim());
+                        }
+                        resultList.add(entity);
+                    } catch (Exception e) {
+                        if (uniqueKeys == null) {
+                            throw e;
+                        }
+                        bindError = e;
+                        resultList.clear();
+                    }
+                }
+                metrics.lap(ExcelPhase.BIND, mark);
+            }
+
+            if (collector == null && uniqueKeys != null && uniqueKeys.hasDuplicates()) {
+                throw new DuplicateRowException(uniqueKeys.getDuplicates());
+            }
+            if (bindError != null) {
+                throw bindError;
+            }
+            if (binder != null) {
+                long mark = metrics.mark();
+                resultList = binder.finish();
+                metrics.lap(ExcelPhase.BIND, mark);
+            }
+            return resultList;
+        } finally {
+            if (binder != null) {
+                binder.close();
+            }
+        }
+    }
+
+    /**
+     * @return 下一个数据行，数据结束或达到最多导入的行数时返回null
+     * @throws ExcelException 列头之后没有任何数据时抛出
+     * @MethodName : readRow
+     * @Description : 读取下一个数据行，遇到空行即认为数据结束
+     */
+    private String[] readRow() throws Exception {
+        if (finished) {
+            return null;
+        }
+        if (options.getRowLimit() > 0 && dataRows >= options.getRowLimit()) {
+            finished = true;
+            return null;
+        }
+        long mark = metrics.mark();
+        String[] row = reader.nextRow();
+        metrics.lap(ExcelPhase.PARSE, mark);
+        if (row == null || isBlank(row)) {
+            finished = true;
+            // 如果Excel中没有任何数据则提示错误信息（跳过的行之后没有数据不算错误）
+            if (dataRows == 0 && skippedRows == 0) {
+                throw new ExcelException("Excel文件中没有任何数据");
+            }
+            return null;
+        }
+        dataRows++;
+        return row;
+    }
+
+    /**
+     * @param count 要跳过的行数
+     * @MethodName : skipRows
+     * @Description : 跳过开头的数据行，遇到空行时数据已经结束
+     */
+    private void skipRows(int count) throws Exception {
+        while (skippedRows < count) {
+            String[] row = reader.nextRow();
+            if (row == null || isBlank(row)) {
+                if (skippedRows == 0) {
+                    throw new ExcelException("Excel文件中没有任何数据");
+                }
+                finished = true;
+                return;
+            }
+            skippedRows++;
+        }
+    }
+
+    /**
+     * @return 列结构和业务主键用到的列
+     */
+    private boolean[] neededColumns() {
+        int width = 0;
+        for (int col : cols) {
+            width = Math.max(width, col + 1);
+        }
+        for (int col : uniqueCols) {
+            width = Math.max(width, col + 1);
+        }
+        boolean[] columns = new boolean[width];
+        for (int col : cols) {
+            columns[col] = true;
+        }
+        for (int col : uniqueCols) {
+            columns[col] = true;
+        }
+        return columns;
+    }
+
+    /**
+     * @return 已读取的数据行数
+     */
+    int getDataRows() {
+        return dataRows;
+    }
+
+    /**
+     * @MethodName : checkUnique
+     * @Description : 业务主键（复合主键）的组合不能重复。
+     * 流式导入时之前的行已经交给了调用方，因此发现第一处重复就停止
+     */
+    private void checkUnique(String[] row) throws Exception {
+        if (uniqueKeys.add(readKey(row), reader.getRowIndex() + 1) > 0) {
+            throw new DuplicateRowException(uniqueKeys.getDuplicates());
+        }
+    }
+
+    /**
+     * @return 该行的业务主键（去除首尾空白）
+     */
+    private String[] readKey(String[] row) {
+        String[] key = new String[uniqueCols.length];
+        for (int i = 0; i < uniqueCols.length; i++) {
+            key[i] = cell(row, uniqueCols[i]).trim();
+        }
+        return key;
+    }
+
+    private static String cell(String[] row, int col) {
+        return col < row.length ? row[col] : "";
+    }
+
+    private static boolean isBlank(String[] row) {
+        for (String content : row) {
+            if (!"".equals(content)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
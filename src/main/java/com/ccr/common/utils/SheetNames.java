@@ -0,0 +1,65 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 工作表名称的规范化：Excel要求名称不超过31个字符、不含[]:*?/\、不以单引号开头或结尾，
+ * 否则打开时会提示文件已损坏。xls和xlsx写入器都按这里的规则处理，两种格式导出的名称一致。
+ */
+final class SheetNames {
+
+    /**
+     * 工作表名称的最大长度
+     */
+    static final int MAX_LENGTH = 31;
+
+    /**
+     * 非法字符的替代字符，与JXL替换非法字符时使用的一致
+     */
+    private static final char REPLACEMENT = '@';
+
+    private static final String ILLEGAL_CHARS = "[]:*?/\\";
+
+    private SheetNames() {
+    }
+
+    /**
+     * @param sheetName 调用方给出的名称
+     * @return 非法字符替换为@、去掉首尾的单引号并截断到31个字符后的名称，为空时返回sheet
+     */
+    static String sanitize(String sheetName) {
+        StringBuilder sb = new StringBuilder(sheetName == null ? "" : sheetName);
+        for (int i = 0; i < sb.length(); i++) {
+            if (ILLEGAL_CHARS.indexOf(sb.charAt(i)) >= 0) {
+                sb.setCharAt(i, REPLACEMENT);
+            }
+        }
+        while (sb.length() > 0 && sb.charAt(0) == '\'') {
+            sb.deleteCharAt(0);
+        }
+        truncate(sb, MAX_LENGTH);
+        while (sb.length() > 0 && sb.charAt(sb.length() - 1) == '\'') {
+            sb.deleteCharAt(sb.length() - 1);
+        }
+        return sb.length() == 0 ? "sheet" : sb.toString();
+    }
+
+    /**
+     * @param sheetName 调用方给出的名称
+     * @param sheetNo   工作表编号，从1开始
+     * @return 带编号的名称，过长时截断名称部分而保留编号，避免截断后多个工作表重名
+     */
+    static String numbered(String sheetName, int sheetNo) {
+        String suffix = String.valueOf(sheetNo);
+        StringBuilder sb = new StringBuilder(sanitize(sheetName));
+        truncate(sb, MAX_LENGTH - suffix.length());
+        return sb.append(suffix).toString();
+    }
+
+    /**
+     * 截断到指定长度，不拆开代理对
+     */
+    private static void truncate(StringBuilder sb, int length) {
+        if (sb.length() > length) {
+            sb.setLength(Character.isHighSurrogate(sb.charAt(length - 1)) ? length - 1 : length);
+        }
+    }
+}
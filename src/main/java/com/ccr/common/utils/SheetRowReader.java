@@ -0,0 +1,35 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 按行顺序读取工作表，屏蔽xls和xlsx的差异。
+ * 没有任何单元格的行（包括xlsx中被省略的行）也会作为空行返回，保证行号连续。
+ */
+interface SheetRowReader {
+
+    /**
+     * 不需要读取的列中有值的单元格返回此内容（不读取、不转换实际内容），只用于判断是否为空行
+     */
+    String SKIPPED = "\u0000";
+
+    /**
+     * 不读取任何列的内容，跳过行时使用
+     */
+    boolean[] NO_COLUMNS = new boolean[0];
+
+    /**
+     * @param columns 需要读取内容的列（下标为列号），为null时读取所有列
+     * @Description 设置之后读取的行中需要读取内容的列，其他列只判断是否有值
+     */
+    void setColumns(boolean[] columns);
+
+    /**
+     * @return 下一行各列的内容（未去除首尾空白，缺失的单元格为空字符串，不需要读取的列为空字符串或SKIPPED），
+     * 没有更多行时返回null
+     */
+    String[] nextRow() throws Exception;
+
+    /**
+     * @return 最近一次返回的行的行号（从0开始，与Excel中的行号减1一致）
+     */
+    int getRowIndex();
+}
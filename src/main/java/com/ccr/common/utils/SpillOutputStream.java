@@ -0,0 +1,162 @@
+package com.ccr.common.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @Description 导出服务中生成文件用的缓冲输出流，由导出服务池化复用：
+ * 文件的前一部分写入固定大小的堆内数组，超出的部分经由直接缓冲区（堆外内存）写入临时文件，
+ * 因此每个导出占用的堆内存不超过数组的大小，与文件大小无关。
+ * 生成完成后通过writeTo写出到目标流，reset后可以用于下一次导出。只能在一个线程中使用。
+ */
+class SpillOutputStream extends OutputStream {
+
+    private final byte[] heap;
+
+    private final ByteBuffer direct;
+
+    private final File directory;
+
+    private int count;
+
+    private File spillFile;
+
+    private FileChannel spill;
+
+    private long spilled;
+
+    /**
+     * @param heapSize   堆内数组的大小，超出后写入临时文件
+     * @param directSize 直接缓冲区的大小
+     * @param directory  临时文件所在的目录，为null时使用系统临时目录
+     */
+    SpillOutputStream(int heapSize, int directSize, File directory) {
+        this.heap = new byte[heapSize];
+        this.direct = ByteBuffer.allocateDirect(directSize);
+        this.directory = directory;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (spill == null && count < heap.length) {
+            heap[count++] = (byte) b;
+            return;
+        }
+        if (spill == null) {
+            openSpill();
+        }
+        if (!direct.hasRemaining()) {
+            flushDirect();
+        }
+        direct.put((byte) b);
+        spilled++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (spill == null) {
+            int n = Math.min(len, heap.length - count);
+            System.arraycopy(b, off, heap, count, n);
+            count += n;
+            if (n == len) {
+                return;
+            }
+            off += n;
+            len -= n;
+            openSpill();
+        }
+        spilled += len;
+        while (len > 0) {
+            if (!direct.hasRemaining()) {
+                flushDirect();
+            }
+            int n = Math.min(len, direct.remaining());
+            direct.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * @return 已写入的字节数
+     */
+    long size() {
+        return count + spilled;
+    }
+
+    /**
+     * @return 是否有内容写入了临时文件
+     */
+    boolean isSpilled() {
+        return spill != null;
+    }
+
+    /**
+     * @param os 目标流，不会被关闭
+     * @throws IOException
+     * @MethodName : writeTo
+     * @Description : 把已写入的全部内容写出到目标流。临时文件中的内容借用已经写出的堆内数组分段读出
+     */
+    void writeTo(OutputStream os) throws IOException {
+        os.write(heap, 0, count);
+        if (spill != null) {
+            flushDirect();
+            ByteBuffer buffer = ByteBuffer.wrap(heap);
+            long position = 0;
+            while (position < spilled) {
+                buffer.clear();
+                int n = spill.read(buffer, position);
+                if (n < 0) {
+                    throw new IOException("导出的临时文件被截断");
+                }
+                os.write(heap, 0, n);
+                position += n;
+            }
+        }
+        os.flush();
+    }
+
+    /**
+     * @MethodName : reset
+     * @Description : 清空内容并删除临时文件，以便复用
+     */
+    void reset() {
+        count = 0;
+        spilled = 0;
+        direct.clear();
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                // 关闭失败不影响复用
+            }
+            spill = null;
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+
+    private void openSpill() throws IOException {
+        spillFile = File.createTempFile("excel-export", ".tmp", directory);
+        try {
+            spill = FileChannel.open(spillFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Files.deleteIfExists(spillFile.toPath());
+            spillFile = null;
+            throw e;
+        }
+    }
+
+    private void flushDirect() throws IOException {
+        direct.flip();
+        while (direct.hasRemaining()) {
+            spill.write(direct);
+        }
+        direct.clear();
+    }
+}
@@ -1,13 +1,18 @@
 package com.ccr.common.utils;
 
+import com.ccr.common.annotation.ExcelColumn;
+
 /**
  * Created by Chengrui on 2015/6/29.
  * @Description 配合测试类
  */
 public class Student {
 
+    @ExcelColumn(name = "编号", order = 1)
     private int id;
+    @ExcelColumn(name = "姓名", order = 2)
     private String name;
+    @ExcelColumn(name = "分数", order = 3)
     private int score;
 
     public int getId() {
@@ -0,0 +1,156 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+import jxl.format.CellFormat;
+import jxl.write.DateFormat;
+import jxl.write.DateTime;
+import jxl.write.Label;
+import jxl.write.WritableCellFormat;
+import jxl.write.WritableSheet;
+import jxl.write.WritableWorkbook;
+
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description 基于模板的xls写入器：复制解析好的模板，从标记单元格开始逐行写入数据。
+ * 列头、列宽、冻结窗格等都由模板决定，每列的单元格使用标记行中对应单元格的格式（只在开始时读取一次），
+ * 不为数据创建新的样式。所有数据必须写在模板中标记所在的工作表里，超出时抛出异常。
+ */
+class TemplateWorkbookWriter implements WorkbookWriter {
+
+    /**
+     * xls工作表的最大行数
+     */
+    private static final int MAX_ROWS = 65536;
+
+    private final ExcelTemplate template;
+
+    private final ExportOptions options;
+
+    private final WritableWorkbook wwb;
+
+    private final AbortableOutputStream out;
+
+    /**
+     * 没有模板格式的日期列使用的格式，格式 -> 单元格格式
+     */
+    private final Map<String, WritableCellFormat> dateFormats = new HashMap<String, WritableCellFormat>();
+
+    /**
+     * 共享字符串表，重复的文本共用同一个String对象，为null时不合并
+     */
+    private final SharedStringTable sharedStrings;
+
+    private WritableSheet sheet;
+
+    /**
+     * 标记行中各列单元格的格式，没有格式时为null
+     */
+    private CellFormat[] columnFormats;
+
+    private String[] formats;
+
+    private int rowNo;
+
+    TemplateWorkbookWriter(OutputStream os, ExportOptions options) throws Exception {
+        this.template = options.getTemplate();
+        this.options = options;
+        this.out = new AbortableOutputStream(os);
+        this.wwb = template.copy(out);
+        this.sharedStrings = SharedStringTable.of(options);
+    }
+
+    @Override
+    public void startSheet(String sheetName, String[] headers, String[] formats, int[] widths) throws Exception {
+        if (sheet != null) {
+            throw overflow();
+        }
+        sheet = wwb.getSheet(template.getSheetIndex());
+        rowNo = template.getStartRow();
+        this.formats = formats;
+        columnFormats = new CellFormat[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            columnFormats[i] = sheet.getWritableCell(template.getStartColumn() + i, rowNo).getCellFormat();
+        }
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws Exception {
+        if (rowNo >= MAX_ROWS) {
+            throw overflow();
+        }
+        // 标记行下方有内容时插入新行，下方的内容和公式随之下移
+        if (template.hasRowsBelow() && rowNo > template.getStartRow()) {
+            sheet.insertRow(rowNo);
+        }
+        int startColumn = template.getStartColumn();
+        for (int i = 0; i < values.length; i++) {
+            int col = startColumn + i;
+            Object objValue = values[i];
+            CellFormat format = columnFormats[i];
+            if (objValue instanceof Number) {
+                double value = ((Number) objValue).doubleValue();
+                sheet.addCell(format == null ? new jxl.write.Number(col, rowNo, value)
+                        : new jxl.write.Number(col, rowNo, value, format));
+            } else if (objValue instanceof Date) {
+                sheet.addCell(new DateTime(col, rowNo, (Date) objValue, format != null ? format : dateFormat(i)));
+            } else if (objValue instanceof Boolean) {
+                sheet.addCell(format == null ? new jxl.write.Boolean(col, rowNo, (Boolean) objValue)
+                        : new jxl.write.Boolean(col, rowNo, (Boolean) objValue, format));
+            } else {
+                String fieldValue = objValue == null ? "" : objValue.toString();
+                if (sharedStrings != null) {
+                    fieldValue = sharedStrings.intern(i, fieldValue);
+                }
+                sheet.addCell(format == null ? new Label(col, rowNo, fieldValue)
+                        : new Label(col, rowNo, fieldValue, format));
+            }
+        }
+        rowNo++;
+    }
+
+    @Override
+    public void endSheet() throws Exception {
+        // 列宽由模板决定
+    }
+
+    @Override
+    public void renameSheet(int sheetIndex, String sheetName) throws Exception {
+        // 只有数据超出一个工作表时才会重命名
+        throw overflow();
+    }
+
+    @Override
+    public void finish() throws Exception {
+        wwb.write();
+        wwb.close();
+    }
+
+    @Override
+    public void abort() {
+        // 关闭时JXL会把已生成的部分写出并删除临时文件，写出的内容被丢弃
+        out.abort();
+        try {
+            wwb.close();
+        } catch (Exception e) {
+            // 已经在失败处理中，忽略关闭时的异常
+        }
+    }
+
+    private WritableCellFormat dateFormat(int col) {
+        String pattern = formats[col] != null ? formats[col] : options.getDatePattern();
+        WritableCellFormat format = dateFormats.get(pattern);
+        if (format == null) {
+            format = new WritableCellFormat(new DateFormat(pattern));
+            dateFormats.put(pattern, format);
+        }
+        return format;
+    }
+
+    private static ExcelException overflow() {
+        return new ExcelException("模板导出的数据超出了一个工作表的容量");
+    }
+}
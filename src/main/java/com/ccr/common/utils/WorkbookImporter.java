@@ -0,0 +1,196 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * @Description 从同一个已打开的导入数据源中导入多个工作表：工作簿只解析一次，各工作表按相同的列结构转换。
+ * 开启并行时各工作表在线程池中同时读取和转换（xls的单元格读取受JXL限制仍是串行的，转换和查重并行），
+ * 每个线程每次领取下一个工作表，结果按工作表在工作簿中的顺序排列。
+ * 每个工作表的规则与excelToBatches相同：遇到空行即结束，业务主键只在工作表内查重，发现第一处重复即停止。
+ */
+class WorkbookImporter<T> {
+
+    private final WorkbookSource source;
+
+    private final Class<T> entityClass;
+
+    private final ExcelSchema schema;
+
+    private final String[] uniqueFields;
+
+    private final ImportOptions options;
+
+    WorkbookImporter(WorkbookSource source, Class<T> entityClass, ExcelSchema schema,
+                     String[] uniqueFields, ImportOptions options) {
+        this.source = source;
+        this.entityClass = entityClass;
+        this.schema = schema;
+        this.uniqueFields = uniqueFields;
+        this.options = options;
+    }
+
+    /**
+     * @param sheetNames   要导入的工作表名称，为null时按sheetPattern选择
+     * @param sheetPattern 工作表名称需要完整匹配的正则表达式，与sheetNames都为null时导入所有工作表
+     * @return 按工作簿中顺序排列的工作表名称
+     * @throws ExcelException 指定的工作表不存在或没有符合条件的工作表时抛出
+     * @MethodName : select
+     * @Description : 选择要导入的工作表
+     */
+    List<String> select(String[] sheetNames, Pattern sheetPattern) throws ExcelException {
+        List<String> available = Arrays.asList(source.getSheetNames());
+        List<String> selected = new ArrayList<String>();
+        if (sheetNames != null) {
+            List<String> requested = new ArrayList<String>();
+            for (String sheetName : sheetNames) {
+                if (available.contains(sheetName)) {
+                    requested.add(sheetName);
+                } else if (available.contains(SheetNames.sanitize(sheetName))) {
+                    // 导出时名称按Excel的规则规范化过
+                    requested.add(SheetNames.sanitize(sheetName));
+                } else {
+                    throw new ExcelException("Excel中不存在名为" + sheetName + "的工作表");
+                }
+            }
+            // 按工作簿中的顺序排列，重复指定的名称只导入一次
+            for (String sheetName : available) {
+                if (requested.contains(sheetName)) {
+                    selected.add(sheetName);
+                }
+            }
+        } else {
+            for (String sheetName : available) {
+                if (sheetPattern == null || sheetPattern.matcher(sheetName).matches()) {
+                    selected.add(sheetName);
+                }
+            }
+            if (selected.isEmpty()) {
+                throw new ExcelException(sheetPattern == null ? "Excel中没有任何工作表"
+                        : "Excel中没有名称符合" + sheetPattern.pattern() + "的工作表");
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @param sheetNames 要导入的工作表
+     * @param metrics    统计，并行时各线程的阶段耗时合并到其中
+     * @return 工作表名称 -> 转换得到的对象，按sheetNames的顺序排列
+     * @throws ExcelException 任一工作表导入失败时抛出，消息中包含工作表名称，原始异常（如DuplicateRowException）为cause
+     * @MethodName : importSheets
+     * @Description : 导入多个工作表，导入选项的并行度大于1时在线程池中同时导入
+     */
+    LinkedHashMap<String, List<T>> importSheets(final List<String> sheetNames, final MetricsRecorder metrics) throws ExcelException {
+        final int size = sheetNames.size();
+        final Object[] results = new Object[size];
+        int threads = Math.min(options.getParallelism(), size);
+        if (threads <= 1) {
+            for (int i = 0; i < size; i++) {
+                results[i] = importSheetOrError(sheetNames.get(i), metrics);
+                if (results[i] instanceof Exception) {
+                    break;
+                }
+            }
+        } else {
+            final MetricsRecorder[] forks = new MetricsRecorder[size];
+            final AtomicInteger nextSheet = new AtomicInteger();
+            final AtomicBoolean failed = new AtomicBoolean();
+            ExecutorService executor = options.getExecutor();
+            List<Future<Void>> workers = new ArrayList<Future<Void>>(threads);
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        int i;
+                        // 有工作表失败后不再领取新的工作表
+                        while (!failed.get() && (i = nextSheet.getAndIncrement()) < size) {
+                            forks[i] = metrics.fork();
+                            results[i] = importSheetOrError(sheetNames.get(i), forks[i]);
+                            if (results[i] instanceof Exception) {
+                                failed.set(true);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            awaitAll(workers);
+            for (MetricsRecorder fork : forks) {
+                if (fork != null) {
+                    metrics.merge(fork);
+                }
+            }
+        }
+
+        // 按工作表顺序报告第一个错误，领取顺序与工作表顺序一致，排在它前面的工作表都已经导入完
+        LinkedHashMap<String, List<T>> resultMap = new LinkedHashMap<String, List<T>>();
+        for (int i = 0; i < size; i++) {
+            if (results[i] instanceof Exception) {
+                Exception e = (Exception) results[i];
+                throw new ExcelException("工作表" + sheetNames.get(i) + "导入失败：" + e.getMessage(), e);
+            }
+            @SuppressWarnings("unchecked")
+            List<T> data = (List<T>) results[i];
+            resultMap.put(sheetNames.get(i), data);
+        }
+        return resultMap;
+    }
+
+    /**
+     * @return 转换得到的对象，失败时返回异常
+     */
+    private Object importSheetOrError(String sheetName, MetricsRecorder metrics) {
+        try {
+            return importSheet(sheetName, metrics);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    private List<T> importSheet(String sheetName, MetricsRecorder metrics) throws Exception {
+        long mark = metrics.mark();
+        SheetRowReader reader = source.openSheet(sheetName);
+        // JXL在第一次访问工作表时才解析其中的记录
+        metrics.lap(ExcelPhase.PARSE, mark);
+        try {
+            SheetImporter<T> importer = new SheetImporter<T>(reader, entityClass, schema, uniqueFields, options, metrics);
+            importer.readHeader();
+            List<T> data = new ArrayList<T>();
+            T entity;
+            while ((entity = importer.next()) != null) {
+                data.add(entity);
+            }
+            return data;
+        } finally {
+            WorkbookSource.closeSheet(reader);
+        }
+    }
+
+    private static void awaitAll(List<Future<Void>> workers) throws ExcelException {
+        for (Future<Void> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                for (Future<Void> other : workers) {
+                    other.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                throw new ExcelException("导入Excel被中断", e);
+            } catch (ExecutionException e) {
+                throw new ExcelException("导入ExceL失败", e.getCause());
+            }
+        }
+    }
+}
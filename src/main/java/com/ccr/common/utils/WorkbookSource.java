@@ -0,0 +1,198 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+import jxl.Sheet;
+import jxl.Workbook;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * @Description 导入数据源：根据文件头自动识别xls和xlsx，CSV、TSV需要在导入选项中指定格式。
+ * xlsx先写入临时文件（ZIP格式需要随机访问目录），再流式读取各工作表；xls交给JXL整体读取；
+ * CSV、TSV边读边解析，本地文件使用内存映射。
+ * 用完后必须关闭，关闭时删除临时文件。
+ */
+class WorkbookSource implements Closeable {
+
+    /**
+     * 分隔符文本只有一个工作表，名称固定，打开时忽略传入的名称
+     */
+    static final String TEXT_SHEET_NAME = "Sheet1";
+
+    private final Workbook jxlWorkbook;
+
+    private final XlsxWorkbookReader xlsxReader;
+
+    private final DelimitedRowReader textReader;
+
+    private WorkbookSource(Workbook jxlWorkbook, XlsxWorkbookReader xlsxReader, DelimitedRowReader textReader) {
+        this.jxlWorkbook = jxlWorkbook;
+        this.xlsxReader = xlsxReader;
+        this.textReader = textReader;
+    }
+
+    /**
+     * @param is 要导入Excel的输入流，不会被关闭
+     * @return 导入数据源
+     * @throws ExcelException
+     * @MethodName : open
+     * @Description : 打开导入数据源
+     */
+    static WorkbookSource open(InputStream is) throws ExcelException {
+        return open(is, null);
+    }
+
+    /**
+     * @param is      要导入文件的输入流，不会被关闭
+     * @param options 导入选项，指定了CSV、TSV格式时按文本解析，可以为null
+     * @return 导入数据源
+     * @throws ExcelException
+     * @MethodName : open
+     * @Description : 打开导入数据源
+     */
+    static WorkbookSource open(InputStream is, ImportOptions options) throws ExcelException {
+        try {
+            if (options != null && options.getFormat() != null && options.getFormat().isDelimited()) {
+                return new WorkbookSource(null, null,
+                        DelimitedRowReader.open(is, options.getFormat().getDelimiter(), options.getCharset()));
+            }
+            BufferedInputStream in = new BufferedInputStream(is);
+            if (isZip(in)) {
+                File tempFile = File.createTempFile("excel-import", ".xlsx");
+                try {
+                    Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (Exception e) {
+                    tempFile.delete();
+                    throw e;
+                }
+                return new WorkbookSource(null, new XlsxWorkbookReader(tempFile, true), null);
+            }
+            return new WorkbookSource(Workbook.getWorkbook(in), null, null);
+        } catch (ExcelException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExcelException("读取Excel文件失败", e);
+        }
+    }
+
+    /**
+     * @param file    要导入的本地文件
+     * @param options 导入选项，指定了CSV、TSV格式时按文本解析，可以为null
+     * @return 导入数据源
+     * @throws ExcelException
+     * @MethodName : open
+     * @Description : 打开本地文件：CSV、TSV做内存映射，xlsx直接读取原文件，不再复制到临时文件
+     */
+    static WorkbookSource open(File file, ImportOptions options) throws ExcelException {
+        try {
+            if (options != null && options.getFormat() != null && options.getFormat().isDelimited()) {
+                return new WorkbookSource(null, null,
+                        DelimitedRowReader.map(file, options.getFormat().getDelimiter(), options.getCharset()));
+            }
+            BufferedInputStream in = new BufferedInputStream(new FileInputStream(file));
+            try {
+                if (isZip(in)) {
+                    return new WorkbookSource(null, new XlsxWorkbookReader(file, false), null);
+                }
+                return new WorkbookSource(Workbook.getWorkbook(in), null, null);
+            } finally {
+                in.close();
+            }
+        } catch (ExcelException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExcelException("读取Excel文件失败", e);
+        }
+    }
+
+    /**
+     * @return 按工作簿中顺序排列的工作表名称
+     */
+    String[] getSheetNames() {
+        if (textReader != null) {
+            return new String[]{TEXT_SHEET_NAME};
+        }
+        return xlsxReader != null ? xlsxReader.getSheetNames() : jxlWorkbook.getSheetNames();
+    }
+
+    /**
+     * @param sheetName 工作表名称
+     * @return 工作表读取器；xls、xlsx的不同工作表可以在不同线程中同时打开和读取
+     * @throws ExcelException 工作表不存在时抛出
+     */
+    SheetRowReader openSheet(String sheetName) throws ExcelException {
+        SheetRowReader reader = findSheet(sheetName);
+        String sanitized = SheetNames.sanitize(sheetName);
+        if (reader == null && !sanitized.equals(sheetName)) {
+            // 导出时名称按Excel的规则规范化过（截断、替换非法字符），用规范化后的名称再找一次
+            reader = findSheet(sanitized);
+        }
+        if (reader == null) {
+            throw new ExcelException("Excel中不存在名为" + sheetName + "的工作表");
+        }
+        return reader;
+    }
+
+    private SheetRowReader findSheet(String sheetName) throws ExcelException {
+        SheetRowReader reader;
+        try {
+            if (textReader != null) {
+                reader = textReader;
+            } else if (xlsxReader != null) {
+                reader = xlsxReader.openSheet(sheetName);
+            } else {
+                synchronized (jxlWorkbook) {
+                    Sheet sheet = jxlWorkbook.getSheet(sheetName);
+                    reader = sheet == null ? null : new JxlSheetRowReader(sheet, jxlWorkbook);
+                }
+            }
+        } catch (Exception e) {
+            throw new ExcelException("读取工作表" + sheetName + "失败", e);
+        }
+        return reader;
+    }
+
+    /**
+     * @param reader 工作表读取器
+     * @MethodName : closeSheet
+     * @Description : 关闭工作表读取器
+     */
+    static void closeSheet(SheetRowReader reader) {
+        if (reader instanceof Closeable) {
+            try {
+                ((Closeable) reader).close();
+            } catch (Exception e) {
+                // 关闭失败不影响已读取的数据
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (textReader != null) {
+            closeSheet(textReader);
+        }
+        if (xlsxReader != null) {
+            xlsxReader.close();
+        }
+        if (jxlWorkbook != null) {
+            jxlWorkbook.close();
+        }
+    }
+
+    private static boolean isZip(BufferedInputStream in) throws Exception {
+        in.mark(4);
+        int b1 = in.read();
+        int b2 = in.read();
+        int b3 = in.read();
+        int b4 = in.read();
+        in.reset();
+        return b1 == 'P' && b2 == 'K' && b3 == 3 && b4 == 4;
+    }
+}
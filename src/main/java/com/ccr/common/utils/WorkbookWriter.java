@@ -0,0 +1,47 @@
+package com.ccr.common.utils;
+
+/**
+ * @Description 工作簿写入器，屏蔽不同导出格式的差异。
+ * 调用顺序：startSheet - writeRow... - endSheet（可重复多个工作表）- finish，中途失败时调用abort
+ */
+interface WorkbookWriter {
+
+    /**
+     * @param sheetName 工作表名称
+     * @param headers   列头
+     * @param formats   各列的单元格格式，按类型写出时使用，元素为null表示使用默认格式
+     * @param widths    各列的固定列宽（字符数），元素为0表示按导出选项计算
+     * @Description 开始一个新的工作表并写入列头
+     */
+    void startSheet(String sheetName, String[] headers, String[] formats, int[] widths) throws Exception;
+
+    /**
+     * @param values 一行中各列的值（String，按类型写出时还可能是Number、Date、Boolean），
+     *               写入器不会持有该数组，调用方可以复用
+     * @Description 向当前工作表追加一行
+     */
+    void writeRow(Object[] values) throws Exception;
+
+    /**
+     * @Description 结束当前工作表
+     */
+    void endSheet() throws Exception;
+
+    /**
+     * @param sheetIndex 从0开始的工作表序号
+     * @param sheetName  新的工作表名称
+     * @Description 修改已经开始的工作表的名称（边读数据边导出时，写满第一个工作表后才知道是否需要分页）
+     */
+    void renameSheet(int sheetIndex, String sheetName) throws Exception;
+
+    /**
+     * @Description 完成工作簿的写出，不关闭调用方传入的输出流
+     */
+    void finish() throws Exception;
+
+    /**
+     * @Description 导出失败时放弃工作簿：释放临时文件、压缩器等资源，不再向输出流写入任何内容，也不抛出异常。
+     * finish成功后不需要调用
+     */
+    void abort();
+}
@@ -0,0 +1,270 @@
+package com.ccr.common.utils;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @Description xlsx工作表读取器：以StAX逐行解析工作表XML，内存中只保留当前行。
+ * 单元格内容转换为与JXL的getContents()相近的文本：共享字符串和内联字符串取原文，
+ * 数字去掉科学计数法，日期格式的数字按导入日期格式（M/d/yyyy H:mm）输出，布尔值输出true/false。
+ * 不需要的列只扫过其中的XML事件判断是否有值，不取出文本、不查共享字符串、不格式化数字。
+ */
+class XlsxSheetRowReader implements SheetRowReader, Closeable {
+
+    private static final String[] EMPTY_ROW = new String[0];
+
+    /**
+     * Excel 1900日期系统的起点（已包含1900年2月29日这个不存在的日期带来的偏移）
+     */
+    private static final LocalDateTime EXCEL_EPOCH = LocalDateTime.of(1899, 12, 30, 0, 0);
+
+    private final XMLStreamReader xr;
+
+    private final InputStream in;
+
+    private final List<String> sharedStrings;
+
+    private final boolean[] dateStyles;
+
+    private int rowIndex = -1;
+
+    /**
+     * 已解析但还没有返回的行（前面有被省略的空行时先返回空行）
+     */
+    private String[] pendingRow;
+
+    private int pendingRowIndex;
+
+    private boolean finished;
+
+    private String[] cells = new String[16];
+
+    private boolean[] columns;
+
+    XlsxSheetRowReader(XMLStreamReader xr, InputStream in, List<String> sharedStrings, boolean[] dateStyles) {
+        this.xr = xr;
+        this.in = in;
+        this.sharedStrings = sharedStrings;
+        this.dateStyles = dateStyles;
+    }
+
+    @Override
+    public void setColumns(boolean[] columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public String[] nextRow() throws Exception {
+        if (pendingRow == null && !finished) {
+            parseNextRow();
+        }
+        if (pendingRow == null) {
+            return null;
+        }
+        rowIndex++;
+        if (pendingRowIndex > rowIndex) {
+            // 中间被省略的行视为空行
+            return EMPTY_ROW;
+        }
+        String[] row = pendingRow;
+        pendingRow = null;
+        return row;
+    }
+
+    @Override
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xr.close();
+        } catch (XMLStreamException e) {
+            // 忽略关闭时的异常
+        }
+        in.close();
+    }
+
+    /**
+     * @MethodName : parseNextRow
+     * @Description : 解析下一个row元素，解析完成后放入pendingRow，没有更多行时将finished置为true
+     */
+    private void parseNextRow() throws XMLStreamException {
+        while (xr.hasNext()) {
+            int event = xr.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "row".equals(xr.getLocalName())) {
+                String r = xr.getAttributeValue(null, "r");
+                pendingRowIndex = r == null ? rowIndex + 1 : Integer.parseInt(r) - 1;
+                pendingRow = parseRow();
+                return;
+            } else if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(xr.getLocalName())) {
+                break;
+            }
+        }
+        finished = true;
+    }
+
+    private String[] parseRow() throws XMLStreamException {
+        int width = 0;
+        int nextCol = 0;
+        while (xr.hasNext()) {
+            int event = xr.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xr.getLocalName())) {
+                String ref = xr.getAttributeValue(null, "r");
+                int col = ref == null ? nextCol : columnIndex(ref);
+                String value;
+                if (columns == null || col < columns.length && columns[col]) {
+                    value = parseCellValue(xr.getAttributeValue(null, "t"), xr.getAttributeValue(null, "s"));
+                } else {
+                    value = skipCellValue() ? SKIPPED : "";
+                }
+                if (col >= cells.length) {
+                    cells = Arrays.copyOf(cells, Math.max(cells.length * 2, col + 1));
+                }
+                for (int i = width; i < col; i++) {
+                    cells[i] = "";
+                }
+                cells[col] = value;
+                width = Math.max(width, col + 1);
+                nextCol = col + 1;
+            } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xr.getLocalName())) {
+                break;
+            }
+        }
+        return width == 0 ? EMPTY_ROW : Arrays.copyOf(cells, width);
+    }
+
+    /**
+     * @return 单元格是否有值
+     * @MethodName : skipCellValue
+     * @Description : 跳过当前c元素直到其结束标签，不取出其中的文本
+     */
+    private boolean skipCellValue() throws XMLStreamException {
+        boolean hasValue = false;
+        boolean formula = false;
+        int depth = 1;
+        while (depth > 0 && xr.hasNext()) {
+            int event = xr.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                // 只有公式没有计算结果的单元格与parseCellValue一致视为没有值
+                formula = "f".equals(xr.getLocalName());
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                formula = false;
+                depth--;
+            } else if (!hasValue && !formula && depth > 1 && event == XMLStreamConstants.CHARACTERS && xr.getTextLength() > 0) {
+                hasValue = true;
+            }
+        }
+        return hasValue;
+    }
+
+    /**
+     * @MethodName : parseCellValue
+     * @Description : 解析当前c元素直到其结束标签，返回单元格文本
+     */
+    private String parseCellValue(String type, String style) throws XMLStreamException {
+        String raw = null;
+        StringBuilder inline = null;
+        int depth = 1;
+        int phoneticDepth = 0;
+        while (depth > 0 && xr.hasNext()) {
+            int event = xr.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = xr.getLocalName();
+                if ("v".equals(name)) {
+                    raw = xr.getElementText();
+                } else if ("t".equals(name)) {
+                    String text = xr.getElementText();
+                    if (phoneticDepth == 0) {
+                        if (inline == null) {
+                            inline = new StringBuilder();
+                        }
+                        inline.append(text);
+                    }
+                } else if ("f".equals(name)) {
+                    xr.getElementText();
+                } else {
+                    if ("rPh".equals(name)) {
+                        phoneticDepth++;
+                    }
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if ("rPh".equals(xr.getLocalName())) {
+                    phoneticDepth--;
+                }
+                depth--;
+            }
+        }
+
+        if ("inlineStr".equals(type)) {
+            return inline == null ? "" : inline.toString();
+        }
+        if (raw == null) {
+            return "";
+        }
+        if ("s".equals(type)) {
+            int index = Integer.parseInt(raw.trim());
+            return index < sharedStrings.size() ? sharedStrings.get(index) : "";
+        }
+        if ("b".equals(type)) {
+            return "1".equals(raw.trim()) ? "true" : "false";
+        }
+        if (type == null || "n".equals(type)) {
+            return formatNumber(raw, style);
+        }
+        // str（公式结果）、e（错误值）、d（ISO日期）直接返回原文
+        return raw;
+    }
+
+    private String formatNumber(String raw, String style) {
+        if (style != null) {
+            int styleIndex = Integer.parseInt(style);
+            if (styleIndex < dateStyles.length && dateStyles[styleIndex]) {
+                return formatDate(Double.parseDouble(raw));
+            }
+        }
+        if (raw.indexOf('E') >= 0 || raw.indexOf('e') >= 0) {
+            return new BigDecimal(raw).stripTrailingZeros().toPlainString();
+        }
+        return raw;
+    }
+
+    /**
+     * @param serial Excel中的日期序列号
+     * @return 按导入日期格式输出的文本
+     */
+    static String formatDate(double serial) {
+        long seconds = Math.round(serial * 86400d);
+        return EXCEL_EPOCH.plusSeconds(seconds).format(RowBinderPlan.DATE_FORMATTER);
+    }
+
+    /**
+     * @param ref 单元格引用，如 B12
+     * @return 从0开始的列号
+     */
+    static int columnIndex(String ref) {
+        int col = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char ch = ref.charAt(i);
+            if (ch >= 'A' && ch <= 'Z') {
+                col = col * 26 + (ch - 'A' + 1);
+            } else if (ch >= 'a' && ch <= 'z') {
+                col = col * 26 + (ch - 'a' + 1);
+            } else {
+                break;
+            }
+        }
+        return col - 1;
+    }
+}
@@ -0,0 +1,322 @@
+package com.ccr.common.utils;
+
+import com.ccr.common.exception.ExcelException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * @Description xlsx工作簿读取器：只解析工作簿目录、共享字符串表和样式表，
+ * 工作表的数据在openSheet返回的读取器中以StAX流式解析，不会把整个工作表读入内存。
+ * 共享字符串表需要随机访问，因此会整体加载，其大小取决于不重复字符串的个数而不是行数。
+ */
+class XlsxWorkbookReader implements Closeable {
+
+    private static final String REL_TYPE_PREFIX = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/";
+
+    private static final String REL_TYPE_PREFIX_STRICT = "http://purl.oclc.org/ooxml/officeDocument/relationships/";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private final ZipFile zipFile;
+
+    private final File file;
+
+    private final boolean deleteOnClose;
+
+    /**
+     * 工作表名称 -> 工作表在压缩包中的路径，保持工作簿中的顺序
+     */
+    private final Map<String, String> sheetPaths = new LinkedHashMap<String, String>();
+
+    private List<String> sharedStrings = Collections.emptyList();
+
+    /**
+     * 下标为单元格样式号，值表示该样式是否为日期格式
+     */
+    private boolean[] dateStyles = new boolean[0];
+
+    XlsxWorkbookReader(File file, boolean deleteOnClose) throws ExcelException {
+        this.file = file;
+        this.deleteOnClose = deleteOnClose;
+        try {
+            this.zipFile = new ZipFile(file);
+        } catch (IOException e) {
+            if (deleteOnClose) {
+                file.delete();
+            }
+            throw new ExcelException("无法读取xlsx文件", e);
+        }
+        try {
+            parseWorkbook();
+        } catch (Exception e) {
+            close();
+            throw e instanceof ExcelException ? (ExcelException) e : new ExcelException("解析xlsx文件失败", e);
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory;
+    }
+
+    /**
+     * @return 按工作簿中顺序排列的工作表名称
+     */
+    String[] getSheetNames() {
+        return sheetPaths.keySet().toArray(new String[sheetPaths.size()]);
+    }
+
+    /**
+     * @param sheetName 工作表名称
+     * @return 工作表读取器，工作表不存在时返回null；读取器用完后需要关闭。
+     * 不同工作表的读取器可以在不同线程中同时使用（共享字符串表和样式只读）
+     */
+    XlsxSheetRowReader openSheet(String sheetName) throws Exception {
+        String path = sheetPaths.get(sheetName);
+        if (path == null) {
+            return null;
+        }
+        InputStream in = openEntry(path);
+        return new XlsxSheetRowReader(createReader(in), in, sharedStrings, dateStyles);
+    }
+
+    @Override
+    public void close() {
+        try {
+            zipFile.close();
+        } catch (IOException e) {
+            // 关闭失败不影响已读取的数据
+        }
+        if (deleteOnClose) {
+            file.delete();
+        }
+    }
+
+    /**
+     * @MethodName : parseWorkbook
+     * @Description : 解析工作簿中的工作表列表及共享字符串表、样式表的位置
+     */
+    private void parseWorkbook() throws Exception {
+        String workbookPath = "xl/workbook.xml";
+        Map<String, String[]> rootRels = parseRels("_rels/.rels", "");
+        for (String[] rel : rootRels.values()) {
+            if (rel[0].endsWith("/officeDocument")) {
+                workbookPath = rel[1];
+            }
+        }
+        String baseDir = workbookPath.contains("/") ? workbookPath.substring(0, workbookPath.lastIndexOf('/') + 1) : "";
+        Map<String, String[]> workbookRels = parseRels(baseDir + "_rels/" + workbookPath.substring(baseDir.length()) + ".rels", baseDir);
+
+        XMLStreamReader xr = createReader(workbookPath);
+        try {
+            while (xr.hasNext()) {
+                if (xr.next() == XMLStreamConstants.START_ELEMENT && "sheet".equals(xr.getLocalName())) {
+                    String name = xr.getAttributeValue(null, "name");
+                    String relId = null;
+                    for (int i = 0; i < xr.getAttributeCount(); i++) {
+                        if ("id".equals(xr.getAttributeLocalName(i))) {
+                            relId = xr.getAttributeValue(i);
+                        }
+                    }
+                    String[] rel = workbookRels.get(relId);
+                    if (name != null && rel != null) {
+                        sheetPaths.put(name, rel[1]);
+                    }
+                }
+            }
+        } finally {
+            xr.close();
+        }
+
+        for (String[] rel : workbookRels.values()) {
+            if (rel[0].endsWith("/sharedStrings")) {
+                sharedStrings = parseSharedStrings(rel[1]);
+            } else if (rel[0].endsWith("/styles")) {
+                dateStyles = parseDateStyles(rel[1]);
+            }
+        }
+    }
+
+    /**
+     * @return 关系Id -> {关系类型, 目标在压缩包中的路径}
+     */
+    private Map<String, String[]> parseRels(String relsPath, String baseDir) throws Exception {
+        Map<String, String[]> rels = new HashMap<String, String[]>();
+        if (zipFile.getEntry(relsPath) == null) {
+            return rels;
+        }
+        XMLStreamReader xr = createReader(relsPath);
+        try {
+            while (xr.hasNext()) {
+                if (xr.next() == XMLStreamConstants.START_ELEMENT && "Relationship".equals(xr.getLocalName())) {
+                    String type = xr.getAttributeValue(null, "Type");
+                    String target = xr.getAttributeValue(null, "Target");
+                    if (type == null || target == null) {
+                        continue;
+                    }
+                    if (type.startsWith(REL_TYPE_PREFIX_STRICT)) {
+                        type = REL_TYPE_PREFIX + type.substring(REL_TYPE_PREFIX_STRICT.length());
+                    }
+                    String path = target.startsWith("/") ? target.substring(1) : baseDir + target;
+                    rels.put(xr.getAttributeValue(null, "Id"), new String[]{type, path});
+                }
+            }
+        } finally {
+            xr.close();
+        }
+        return rels;
+    }
+
+    /**
+     * @MethodName : parseSharedStrings
+     * @Description : 读取共享字符串表，富文本的各段拼接在一起，拼音注释（rPh）忽略
+     */
+    private List<String> parseSharedStrings(String path) throws Exception {
+        List<String> strings = new ArrayList<String>();
+        XMLStreamReader xr = createReader(path);
+        try {
+            StringBuilder sb = null;
+            int phoneticDepth = 0;
+            while (xr.hasNext()) {
+                int event = xr.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xr.getLocalName();
+                    if ("si".equals(name)) {
+                        sb = new StringBuilder();
+                    } else if ("rPh".equals(name)) {
+                        phoneticDepth++;
+                    } else if ("t".equals(name) && sb != null && phoneticDepth == 0) {
+                        sb.append(xr.getElementText());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = xr.getLocalName();
+                    if ("si".equals(name) && sb != null) {
+                        strings.add(sb.toString());
+                        sb = null;
+                    } else if ("rPh".equals(name)) {
+                        phoneticDepth--;
+                    }
+                }
+            }
+        } finally {
+            xr.close();
+        }
+        return strings;
+    }
+
+    /**
+     * @MethodName : parseDateStyles
+     * @Description : 读取样式表，找出数字格式为日期的单元格样式
+     */
+    private boolean[] parseDateStyles(String path) throws Exception {
+        Map<Integer, String> customFormats = new HashMap<Integer, String>();
+        List<Boolean> styles = new ArrayList<Boolean>();
+        XMLStreamReader xr = createReader(path);
+        try {
+            boolean inCellXfs = false;
+            while (xr.hasNext()) {
+                int event = xr.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xr.getLocalName();
+                    if ("numFmt".equals(name)) {
+                        String id = xr.getAttributeValue(null, "numFmtId");
+                        String code = xr.getAttributeValue(null, "formatCode");
+                        if (id != null && code != null) {
+                            customFormats.put(Integer.valueOf(id), code);
+                        }
+                    } else if ("cellXfs".equals(name)) {
+                        inCellXfs = true;
+                    } else if ("xf".equals(name) && inCellXfs) {
+                        String id = xr.getAttributeValue(null, "numFmtId");
+                        int numFmtId = id == null ? 0 : Integer.parseInt(id);
+                        styles.add(isDateFormat(numFmtId, customFormats.get(numFmtId)));
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "cellXfs".equals(xr.getLocalName())) {
+                    inCellXfs = false;
+                }
+            }
+        } finally {
+            xr.close();
+        }
+        boolean[] result = new boolean[styles.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = styles.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @param numFmtId   数字格式编号
+     * @param formatCode 自定义格式代码，内置格式为null
+     * @return 是否为日期/时间格式
+     */
+    static boolean isDateFormat(int numFmtId, String formatCode) {
+        if ((numFmtId >= 14 && numFmtId <= 22) || (numFmtId >= 27 && numFmtId <= 36)
+                || (numFmtId >= 45 && numFmtId <= 47) || (numFmtId >= 50 && numFmtId <= 58)) {
+            return true;
+        }
+        if (formatCode == null) {
+            return false;
+        }
+        // 去掉引号中的文字、方括号中的颜色/条件以及转义字符后，再看是否含有日期时间占位符
+        boolean inQuote = false;
+        boolean inBracket = false;
+        for (int i = 0; i < formatCode.length(); i++) {
+            char ch = formatCode.charAt(i);
+            if (ch == '"') {
+                inQuote = !inQuote;
+            } else if (inQuote) {
+                continue;
+            } else if (ch == '\\') {
+                i++;
+            } else if (ch == '[') {
+                inBracket = true;
+            } else if (ch == ']') {
+                inBracket = false;
+            } else if (!inBracket && "yYmMdDhHsS".indexOf(ch) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private InputStream openEntry(String path) throws IOException, ExcelException {
+        ZipEntry entry = zipFile.getEntry(path);
+        if (entry == null) {
+            throw new ExcelException("xlsx文件缺少" + path);
+        }
+        return zipFile.getInputStream(entry);
+    }
+
+    private XMLStreamReader createReader(String path) throws IOException, ExcelException, XMLStreamException {
+        return createReader(openEntry(path));
+    }
+
+    /**
+     * XMLInputFactory不保证线程安全，所有读取器共用一个工厂，因此创建时按工厂加锁；
+     * 创建出的XMLStreamReader各自独立，读取时不需要加锁
+     */
+    private static XMLStreamReader createReader(InputStream in) throws XMLStreamException {
+        synchronized (XML_INPUT_FACTORY) {
+            return XML_INPUT_FACTORY.createXMLStreamReader(in);
+        }
+    }
+}
@@ -0,0 +1,539 @@
+package com.ccr.common.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @Description 流式xlsx写入器：每个工作表的XML边生成边写入ZIP流。
+ * 每个工作表只在内存中保留一个固定大小的行窗口，窗口第一次写满（或工作表结束）时，
+ * 根据列头和窗口内的数据确定列宽并写出工作表头部，此后窗口满一次就写出一次，
+ * 因此无论导出多少行，占用的内存都是恒定的。
+ * 列宽必须写在数据之前，所以按前N行计算列宽时，第一个窗口会扩大到N行。
+ * 按类型写出时，数字、布尔值写为对应类型的单元格，日期写为日期序列值；
+ * 相同格式的单元格共用styles.xml中的同一个样式，样式在finish时统一写出。
+ * 重复程度高的列中的文本写为共享字符串（sharedStrings.xml中的序号），每个不同的文本只写出一次，
+ * 高基数列和共享字符串表写满之后的文本仍写为内联文本，共享字符串表的内存占用有上限。
+ */
+class XlsxWorkbookWriter implements WorkbookWriter {
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    /**
+     * 压缩包中各文件的修改时间固定为同一值，相同的数据总是得到相同的文件内容
+     */
+    private static final long ENTRY_TIME = new GregorianCalendar(1980, Calendar.JANUARY, 1).getTimeInMillis();
+
+    /**
+     * 自定义数字格式的起始编号，更小的编号为Excel内置格式
+     */
+    private static final int CUSTOM_NUM_FMT_ID = 164;
+
+    /**
+     * 1970-01-01在Excel日期序列中的值
+     */
+    private static final int EPOCH_SERIAL = 25569;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private final AbortableOutputStream out;
+
+    private final ZipOutputStream zos;
+
+    private final Writer writer;
+
+    private final ExportOptions options;
+
+    private final int rowWindowSize;
+
+    /**
+     * 写出工作表头部之前缓冲的行数，列宽根据这些行计算
+     */
+    private final int headWindowSize;
+
+    private final List<String> sheetNames = new ArrayList<String>();
+
+    /**
+     * 当前工作表尚未写出的行（写入时复制的值）
+     */
+    private final List<Object[]> window = new ArrayList<Object[]>();
+
+    /**
+     * 格式代码 -> 样式编号，键以"n:"（数字）或"d:"（日期）开头，样式编号0为默认样式
+     */
+    private final Map<String, Integer> styles = new LinkedHashMap<String, Integer>();
+
+    private final TimeZone timeZone = TimeZone.getDefault();
+
+    /**
+     * 共享字符串表，为null时全部写为内联文本
+     */
+    private final SharedStringTable sharedStrings;
+
+    private String[] headers;
+
+    /**
+     * 当前工作表各列使用的格式
+     */
+    private String[] formats;
+
+    /**
+     * 当前工作表各列数字、日期单元格的样式编号，-1表示尚未确定
+     */
+    private int[] columnNumberStyles;
+
+    private int[] columnDateStyles;
+
+    private ColumnWidthTracker widthTracker;
+
+    private boolean sheetHeadWritten;
+
+    private int rowNo;
+
+    XlsxWorkbookWriter(OutputStream os, ExportOptions options) {
+        // 压缩流关闭时不关闭调用方的流，完成或放弃导出后都关闭压缩流，及时释放Deflater的本地内存
+        this.out = new AbortableOutputStream(os);
+        this.zos = new ZipOutputStream(out);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zos, StandardCharsets.UTF_8), 64 * 1024);
+        this.options = options;
+        this.rowWindowSize = options.getRowWindowSize();
+        this.headWindowSize = options.getColumnWidthMode() == ColumnWidthMode.SAMPLED
+                ? Math.max(rowWindowSize, options.getColumnWidthSampleRows())
+                : rowWindowSize;
+        this.sharedStrings = SharedStringTable.of(options);
+    }
+
+    @Override
+    public void startSheet(String sheetName, String[] headers, String[] formats, int[] widths) throws Exception {
+        sheetNames.add(SheetNames.sanitize(sheetName));
+        zos.putNextEntry(newEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+        this.headers = headers;
+        this.formats = formats;
+        this.columnNumberStyles = newStyleSlots(headers.length);
+        this.columnDateStyles = newStyleSlots(headers.length);
+        this.widthTracker = new ColumnWidthTracker(headers, widths, options);
+        this.sheetHeadWritten = false;
+        this.rowNo = 1;
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws Exception {
+        Object[] row = new Object[values.length];
+        boolean tracking = !sheetHeadWritten && widthTracker.isTracking();
+        for (int i = 0; i < values.length; i++) {
+            Object objValue = values[i];
+            if (!(objValue instanceof Number || objValue instanceof Date || objValue instanceof Boolean)) {
+                objValue = objValue == null ? "" : objValue.toString();
+            }
+            row[i] = objValue;
+            if (tracking) {
+                widthTracker.trackValue(i, objValue, datePattern(i));
+            }
+        }
+        if (tracking) {
+            widthTracker.endRow();
+        }
+        window.add(row);
+        if (window.size() >= (sheetHeadWritten ? rowWindowSize : headWindowSize)) {
+            flushWindow();
+        }
+    }
+
+    @Override
+    public void endSheet() throws Exception {
+        flushWindow();
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zos.closeEntry();
+        headers = null;
+        formats = null;
+        widthTracker = null;
+    }
+
+    @Override
+    public void renameSheet(int sheetIndex, String sheetName) throws Exception {
+        // workbook.xml在finish时才写出，这里只需修改记录的名称
+        sheetNames.set(sheetIndex, SheetNames.sanitize(sheetName));
+    }
+
+    @Override
+    public void finish() throws Exception {
+        writeEntry("[Content_Types].xml", contentTypes());
+        writeEntry("_rels/.rels", XML_HEADER
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRels());
+        writeEntry("xl/styles.xml", styles());
+        if (hasSharedStrings()) {
+            writeSharedStrings();
+        }
+        zos.finish();
+        zos.close();
+    }
+
+    @Override
+    public void abort() {
+        out.abort();
+        try {
+            zos.close();
+        } catch (Exception e) {
+            // 已经在失败处理中，忽略关闭时的异常
+        }
+    }
+
+    /**
+     * @MethodName : flushWindow
+     * @Description : 将行窗口中的数据写入压缩流，第一次写出时先根据已跟踪的列宽写出工作表头部
+     */
+    private void flushWindow() throws IOException {
+        if (!sheetHeadWritten) {
+            writeSheetHead();
+            sheetHeadWritten = true;
+        }
+        for (Object[] row : window) {
+            writeRowXml(row, sharedStrings);
+        }
+        window.clear();
+    }
+
+    private void writeSheetHead() throws IOException {
+        writer.write(XML_HEADER);
+        writer.write("<worksheet xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_REL + "\">");
+        if (widthTracker.isEnabled() && widthTracker.size() > 0) {
+            writer.write("<cols>");
+            for (int i = 0; i < widthTracker.size(); i++) {
+                int width = widthTracker.getWidth(i);
+                if (width > 0) {
+                    writer.write("<col min=\"" + (i + 1) + "\" max=\"" + (i + 1) + "\" width=\""
+                            + width + "\" customWidth=\"1\"/>");
+                }
+            }
+            writer.write("</cols>");
+        }
+        writer.write("<sheetData>");
+        rowNo = 0;
+        // 列头不参与各列重复程度的统计
+        writeRowXml(headers, null);
+    }
+
+    /**
+     * @param row           一行的值
+     * @param sharedStrings 共享字符串表，为null时文本全部写为内联文本
+     */
+    private void writeRowXml(Object[] row, SharedStringTable sharedStrings) throws IOException {
+        rowNo++;
+        writer.write("<row r=\"");
+        writer.write(Integer.toString(rowNo));
+        writer.write("\">");
+        for (int i = 0; i < row.length; i++) {
+            Object value = row[i];
+            if (value instanceof String) {
+                String text = (String) value;
+                if (text.length() == 0) {
+                    continue;
+                }
+                int index = sharedStrings != null ? sharedStrings.indexOf(i, text) : -1;
+                writer.write("<c r=\"");
+                writeCellRef(i, rowNo);
+                if (index >= 0) {
+                    writer.write("\" t=\"s\"><v>");
+                    writer.write(Integer.toString(index));
+                    writer.write("</v></c>");
+                    continue;
+                }
+                writer.write("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writeEscaped(text);
+                writer.write("</t></is></c>");
+            } else if (value instanceof Boolean) {
+                writer.write("<c r=\"");
+                writeCellRef(i, rowNo);
+                writer.write((Boolean) value ? "\" t=\"b\"><v>1</v></c>" : "\" t=\"b\"><v>0</v></c>");
+            } else {
+                int style;
+                String number;
+                if (value instanceof Date) {
+                    style = dateStyle(i);
+                    number = Double.toString(dateSerial((Date) value));
+                } else {
+                    style = numberStyle(i);
+                    number = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+                }
+                writer.write("<c r=\"");
+                writeCellRef(i, rowNo);
+                if (style > 0) {
+                    writer.write("\" s=\"");
+                    writer.write(Integer.toString(style));
+                }
+                writer.write("\"><v>");
+                writer.write(number);
+                writer.write("</v></c>");
+            }
+        }
+        writer.write("</row>");
+    }
+
+    /**
+     * @param date 日期
+     * @return Excel日期序列值（1900日期系统，按本地时区显示）
+     */
+    private double dateSerial(Date date) {
+        long millis = date.getTime();
+        return (double) (millis + timeZone.getOffset(millis)) / MILLIS_PER_DAY + EPOCH_SERIAL;
+    }
+
+    private int numberStyle(int col) {
+        if (columnNumberStyles[col] < 0) {
+            columnNumberStyles[col] = formats[col] == null ? 0 : styleOf("n:" + formats[col]);
+        }
+        return columnNumberStyles[col];
+    }
+
+    private int dateStyle(int col) {
+        if (columnDateStyles[col] < 0) {
+            columnDateStyles[col] = styleOf("d:" + excelDatePattern(datePattern(col)));
+        }
+        return columnDateStyles[col];
+    }
+
+    private int styleOf(String key) {
+        Integer style = styles.get(key);
+        if (style == null) {
+            style = styles.size() + 1;
+            styles.put(key, style);
+        }
+        return style;
+    }
+
+    private String datePattern(int col) {
+        return formats[col] != null ? formats[col] : options.getDatePattern();
+    }
+
+    private static int[] newStyleSlots(int size) {
+        int[] slots = new int[size];
+        Arrays.fill(slots, -1);
+        return slots;
+    }
+
+    /**
+     * @param pattern SimpleDateFormat的日期格式，如 yyyy-MM-dd HH:mm:ss
+     * @return Excel的日期格式代码，如 yyyy-mm-dd hh:mm:ss
+     * @MethodName : excelDatePattern
+     * @Description : 转换常用的日期格式字母，其他字母和文字作为原样显示的文本加上引号（双引号本身被忽略）
+     */
+    static String excelDatePattern(String pattern) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 8);
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char ch = pattern.charAt(i);
+            if (ch == '\'') {
+                quoted = !quoted;
+                continue;
+            }
+            if (ch == '"') {
+                continue;
+            }
+            if (quoted) {
+                sb.append('"').append(ch).append('"');
+            } else if (ch == 'y' || ch == 'd' || ch == 'm' || ch == 's') {
+                sb.append(ch);
+            } else if (ch == 'M') {
+                sb.append('m');
+            } else if (ch == 'H' || ch == 'h') {
+                sb.append('h');
+            } else if (ch == 'a') {
+                sb.append("AM/PM");
+            } else if (ch == 'S') {
+                sb.append('0');
+            } else if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch > 0x7F) {
+                sb.append('"').append(ch).append('"');
+            } else {
+                sb.append(ch);
+            }
+        }
+        // 相邻的文本合并到同一对引号中
+        return sb.toString().replace("\"\"", "");
+    }
+
+    private void writeCellRef(int col, int row) throws IOException {
+        writer.write(columnName(col));
+        writer.write(Integer.toString(row));
+    }
+
+    /**
+     * @param col 从0开始的列号
+     * @return 列名，如 A、Z、AA
+     */
+    static String columnName(int col) {
+        StringBuilder sb = new StringBuilder(3);
+        int n = col + 1;
+        while (n > 0) {
+            int rem = (n - 1) % 26;
+            sb.insert(0, (char) ('A' + rem));
+            n = (n - 1) / 26;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @MethodName : writeEscaped
+     * @Description : 写出XML转义后的文本，XML 1.0 不允许的控制字符直接丢弃
+     */
+    private void writeEscaped(String text) throws IOException {
+        int start = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            String replacement;
+            if (ch == '<') {
+                replacement = "&lt;";
+            } else if (ch == '>') {
+                replacement = "&gt;";
+            } else if (ch == '&') {
+                replacement = "&amp;";
+            } else if (ch == '"') {
+                replacement = "&quot;";
+            } else if (ch < 0x20 && ch != '\t' && ch != '\n' && ch != '\r') {
+                replacement = "";
+            } else {
+                continue;
+            }
+            writer.write(text, start, i - start);
+            writer.write(replacement);
+            start = i + 1;
+        }
+        writer.write(text, start, length - start);
+    }
+
+    private boolean hasSharedStrings() {
+        return sharedStrings != null && sharedStrings.size() > 0;
+    }
+
+    /**
+     * @MethodName : writeSharedStrings
+     * @Description : 写出共享字符串表，逐项转义后直接写入压缩流，不拼接整个文件的内容
+     */
+    private void writeSharedStrings() throws IOException {
+        zos.putNextEntry(newEntry("xl/sharedStrings.xml"));
+        writer.write(XML_HEADER);
+        writer.write("<sst xmlns=\"" + NS_MAIN + "\" count=\"" + sharedStrings.getReferences()
+                + "\" uniqueCount=\"" + sharedStrings.size() + "\">");
+        for (int i = 0; i < sharedStrings.size(); i++) {
+            writer.write("<si><t xml:space=\"preserve\">");
+            writeEscaped(sharedStrings.get(i));
+            writer.write("</t></si>");
+        }
+        writer.write("</sst>");
+        writer.flush();
+        zos.closeEntry();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static ZipEntry newEntry(String name) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        return entry;
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zos.putNextEntry(newEntry(name));
+        writer.write(content);
+        writer.flush();
+        zos.closeEntry();
+    }
+
+    private String contentTypes() {
+        StringBuilder sb = new StringBuilder(XML_HEADER);
+        sb.append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">");
+        sb.append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>");
+        sb.append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>");
+        sb.append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        sb.append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        if (hasSharedStrings()) {
+            sb.append("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+        }
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            sb.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        sb.append("</Types>");
+        return sb.toString();
+    }
+
+    private String workbook() {
+        StringBuilder sb = new StringBuilder(XML_HEADER);
+        sb.append("<workbook xmlns=\"").append(NS_MAIN).append("\" xmlns:r=\"").append(NS_REL).append("\"><sheets>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            sb.append("<sheet name=\"").append(escape(sheetNames.get(i - 1))).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        sb.append("</sheets></workbook>");
+        return sb.toString();
+    }
+
+    private String workbookRels() {
+        StringBuilder sb = new StringBuilder(XML_HEADER);
+        sb.append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            sb.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(NS_REL)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        sb.append("<Relationship Id=\"rId").append(sheetNames.size() + 1).append("\" Type=\"").append(NS_REL)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        if (hasSharedStrings()) {
+            sb.append("<Relationship Id=\"rId").append(sheetNames.size() + 2).append("\" Type=\"").append(NS_REL)
+                    .append("/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+        }
+        sb.append("</Relationships>");
+        return sb.toString();
+    }
+
+    private String styles() {
+        StringBuilder numFmts = new StringBuilder();
+        StringBuilder cellXfs = new StringBuilder("<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>");
+        int numFmtId = CUSTOM_NUM_FMT_ID;
+        for (String key : styles.keySet()) {
+            numFmts.append("<numFmt numFmtId=\"").append(numFmtId).append("\" formatCode=\"")
+                    .append(escape(key.substring(2))).append("\"/>");
+            cellXfs.append("<xf numFmtId=\"").append(numFmtId)
+                    .append("\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>");
+            numFmtId++;
+        }
+        StringBuilder sb = new StringBuilder(XML_HEADER);
+        sb.append("<styleSheet xmlns=\"").append(NS_MAIN).append("\">");
+        if (!styles.isEmpty()) {
+            sb.append("<numFmts count=\"").append(styles.size()).append("\">").append(numFmts).append("</numFmts>");
+        }
+        sb.append("<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>");
+        sb.append("<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>");
+        sb.append("<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>");
+        sb.append("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+        sb.append("<cellXfs count=\"").append(styles.size() + 1).append("\">").append(cellXfs).append("</cellXfs>");
+        sb.append("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>");
+        sb.append("</styleSheet>");
+        return sb.toString();
+    }
+}
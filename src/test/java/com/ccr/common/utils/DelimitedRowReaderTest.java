@@ -0,0 +1,210 @@
+package com.ccr.common.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @Description DelimitedRowReader的测试：引号、换行、BOM，以及多字节字符跨越读取缓冲区和内存映射窗口的情况
+ */
+public class DelimitedRowReaderTest {
+
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    /**
+     * 与DelimitedRowReader中的字节缓冲区和映射窗口大小一致
+     */
+    private static final int BYTE_BUFFER_SIZE = 64 * 1024;
+
+    private static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parsesQuotedFields() throws Exception {
+        List<String[]> rows = read("a,\"b,c\",\"d\"\"e\"\n\"\",\"\"\"\",x\"y\n\"多\n行\",\"回车\r\n换行\"\n", ',');
+        assertEquals(3, rows.size());
+        assertArrayEquals(new String[]{"a", "b,c", "d\"e"}, rows.get(0));
+        assertArrayEquals(new String[]{"", "\"", "x\"y"}, rows.get(1));
+        assertArrayEquals(new String[]{"多\n行", "回车\r\n换行"}, rows.get(2));
+    }
+
+    @Test
+    public void acceptsAllLineEndings() throws Exception {
+        List<String[]> rows = read("a,1\r\nb,2\rc,3\nd,4", ',');
+        assertEquals(4, rows.size());
+        assertArrayEquals(new String[]{"a", "1"}, rows.get(0));
+        assertArrayEquals(new String[]{"b", "2"}, rows.get(1));
+        assertArrayEquals(new String[]{"c", "3"}, rows.get(2));
+        assertArrayEquals(new String[]{"d", "4"}, rows.get(3));
+    }
+
+    @Test
+    public void keepsEmptyLinesAndCountsRows() throws Exception {
+        DelimitedRowReader reader = DelimitedRowReader.open(stream("a\n\n,\nb\n"), ',', StandardCharsets.UTF_8);
+        assertArrayEquals(new String[]{"a"}, reader.nextRow());
+        assertArrayEquals(new String[]{""}, reader.nextRow());
+        assertArrayEquals(new String[]{"", ""}, reader.nextRow());
+        assertArrayEquals(new String[]{"b"}, reader.nextRow());
+        assertEquals(3, reader.getRowIndex());
+        assertNull(reader.nextRow());
+        assertNull(reader.nextRow());
+        reader.close();
+    }
+
+    @Test
+    public void skipsUnwantedColumns() throws Exception {
+        DelimitedRowReader reader = DelimitedRowReader.open(stream("a,\"b,\"\"\",c,,d\n1,2\n"), ',', StandardCharsets.UTF_8);
+        reader.setColumns(new boolean[]{false, true, false});
+        assertArrayEquals(new String[]{SheetRowReader.SKIPPED, "b,\"", SheetRowReader.SKIPPED, "", SheetRowReader.SKIPPED},
+                reader.nextRow());
+        reader.setColumns(SheetRowReader.NO_COLUMNS);
+        assertArrayEquals(new String[]{SheetRowReader.SKIPPED, SheetRowReader.SKIPPED}, reader.nextRow());
+        assertNull(reader.nextRow());
+        reader.close();
+    }
+
+    @Test
+    public void splitsTabSeparatedValues() throws Exception {
+        List<String[]> rows = read("编号\t姓名\n1\t\"张,三\"\t\n", '\t');
+        assertArrayEquals(new String[]{"编号", "姓名"}, rows.get(0));
+        assertArrayEquals(new String[]{"1", "张,三", ""}, rows.get(1));
+    }
+
+    @Test
+    public void skipsByteOrderMark() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        os.write(BOM);
+        os.write("编号,姓名\n1,张三\n".getBytes(StandardCharsets.UTF_8));
+        List<String[]> rows = readAll(DelimitedRowReader.open(new ByteArrayInputStream(os.toByteArray()), ',', StandardCharsets.UTF_8));
+        assertArrayEquals(new String[]{"编号", "姓名"}, rows.get(0));
+
+        File file = folder.newFile("bom.csv");
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            os.writeTo(fos);
+        } finally {
+            fos.close();
+        }
+        rows = readAll(DelimitedRowReader.map(file, ',', StandardCharsets.UTF_8));
+        assertArrayEquals(new String[]{"编号", "姓名"}, rows.get(0));
+        assertArrayEquals(new String[]{"1", "张三"}, rows.get(1));
+    }
+
+    @Test
+    public void decodesCharactersAcrossReadBuffer() throws Exception {
+        // 三字节字符的前1、2个字节落在第一次读取的末尾
+        for (int tail = 1; tail <= 2; tail++) {
+            StringBuilder pad = new StringBuilder();
+            for (int i = 0; i < BYTE_BUFFER_SIZE - tail; i++) {
+                pad.append('a');
+            }
+            List<String[]> rows = read(pad + "中文,\"引\"\"号\"\n第二行,x\n", ',');
+            assertEquals(2, rows.size());
+            assertEquals(pad + "中文", rows.get(0)[0]);
+            assertEquals("引\"号", rows.get(0)[1]);
+            assertArrayEquals(new String[]{"第二行", "x"}, rows.get(1));
+        }
+    }
+
+    @Test
+    public void parsesEscapedQuotesAndLineBreaksAcrossCharBuffer() throws Exception {
+        // 字符缓冲区为32K，逐个偏移让两个引号、\r\n分别落在缓冲区边界两侧
+        for (int shift = 0; shift < 8; shift++) {
+            StringBuilder pad = new StringBuilder();
+            for (int i = 0; i < 32 * 1024 - 3 - shift; i++) {
+                pad.append('a');
+            }
+            List<String[]> rows = read(pad + ",\"x\"\"y\"\r\nb,c\r\n", ',');
+            assertEquals(2, rows.size());
+            assertArrayEquals(new String[]{pad.toString(), "x\"y"}, rows.get(0));
+            assertArrayEquals(new String[]{"b", "c"}, rows.get(1));
+        }
+    }
+
+    @Test
+    public void decodesCharactersAcrossMappedWindow() throws Exception {
+        for (int tail = 1; tail <= 2; tail++) {
+            File file = folder.newFile("window" + tail + ".csv");
+            // 前面是每行1024字节的ASCII行，最后一个三字节字符的前tail个字节落在第一个映射窗口的末尾
+            byte[] line = new byte[1024];
+            Arrays.fill(line, (byte) 'a');
+            line[line.length - 1] = '\n';
+            long lines = (MAP_WINDOW_SIZE - tail) / line.length;
+            int rest = (int) (MAP_WINDOW_SIZE - tail - lines * line.length);
+            OutputStream os = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+            try {
+                for (long i = 0; i < lines; i++) {
+                    os.write(line);
+                }
+                for (int i = 0; i < rest; i++) {
+                    os.write('b');
+                }
+                os.write("中文,尾\n".getBytes(StandardCharsets.UTF_8));
+            } finally {
+                os.close();
+            }
+
+            DelimitedRowReader reader = DelimitedRowReader.map(file, ',', StandardCharsets.UTF_8);
+            try {
+                String[] row;
+                String[] last = null;
+                while ((row = reader.nextRow()) != null) {
+                    last = row;
+                }
+                assertEquals(lines, reader.getRowIndex());
+                assertEquals(2, last.length);
+                assertEquals(rest + 2, last[0].length());
+                assertEquals("中文", last[0].substring(rest));
+                assertEquals("尾", last[1]);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    @Test
+    public void readsOtherCharsets() throws Exception {
+        Charset gbk = Charset.forName("GBK");
+        List<String[]> rows = readAll(DelimitedRowReader.open(new ByteArrayInputStream("编号,姓名\n1,张三\n".getBytes(gbk)), ',', gbk));
+        assertArrayEquals(new String[]{"1", "张三"}, rows.get(1));
+    }
+
+    private static List<String[]> read(String content, char delimiter) throws Exception {
+        return readAll(DelimitedRowReader.open(stream(content), delimiter, StandardCharsets.UTF_8));
+    }
+
+    private static List<String[]> readAll(DelimitedRowReader reader) throws Exception {
+        List<String[]> rows = new ArrayList<String[]>();
+        try {
+            String[] row;
+            while ((row = reader.nextRow()) != null) {
+                rows.add(row);
+            }
+        } finally {
+            reader.close();
+        }
+        return rows;
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,203 @@
+package com.ccr.common.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @Description 导出后再导入的测试，xls、xlsx、csv、tsv按同一套规则往返
+ */
+public class ExcelUtilsRoundTripTest {
+
+    private static final ExcelFormat[] FORMATS = {ExcelFormat.XLS, ExcelFormat.XLSX, ExcelFormat.CSV, ExcelFormat.TSV};
+
+    private static final String[] UNIQUE_FIELDS = {"编号"};
+
+    @Test
+    public void exportsAndImportsEveryFormat() throws Exception {
+        List<Student> students = new ArrayList<Student>();
+        String[] names = {"张三", "李,四", "王\"五\"", "赵\n六", " 前后空格 ", "=1+1"};
+        for (int i = 0; i < 300; i++) {
+            students.add(student(i + 1, names[i % names.length] + i, i % 101));
+        }
+        for (ExcelFormat format : FORMATS) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ExcelUtils.listToExcel(students, Student.class, "学生", 0, new ExportOptions().setFormat(format), os);
+            List<Student> imported = ExcelUtils.excelToList(new ByteArrayInputStream(os.toByteArray()), "学生", Student.class,
+                    UNIQUE_FIELDS, new ImportOptions().setFormat(format));
+            assertEquals(format.name(), students.size(), imported.size());
+            for (int i = 0; i < students.size(); i++) {
+                assertEquals(format.name(), students.get(i).getId(), imported.get(i).getId());
+                // 导入时去掉首尾空白
+                assertEquals(format.name(), students.get(i).getName().trim(), imported.get(i).getName());
+                assertEquals(format.name(), students.get(i).getScore(), imported.get(i).getScore());
+            }
+        }
+    }
+
+    @Test
+    public void importsRowWindow() throws Exception {
+        List<Student> students = new ArrayList<Student>();
+        for (int i = 0; i < 100; i++) {
+            // 跳过的行不参与查重，与窗口内的行重复也不报错
+            students.add(student(i < 10 ? i + 50 : i, "学生" + i, i % 101));
+        }
+        for (ExcelFormat format : FORMATS) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ExcelUtils.listToExcel(students, Student.class, "学生", 0, new ExportOptions().setFormat(format), os);
+            List<Student> imported = ExcelUtils.excelToList(new ByteArrayInputStream(os.toByteArray()), "学生", Student.class,
+                    UNIQUE_FIELDS, new ImportOptions().setFormat(format).setRowOffset(10).setRowLimit(25));
+            assertEquals(format.name(), 25, imported.size());
+            assertEquals(format.name(), 10, imported.get(0).getId());
+            assertEquals(format.name(), 34, imported.get(24).getId());
+        }
+    }
+
+    @Test
+    public void splitsSheetsAndImportsEachByName() throws Exception {
+        List<Student> students = new ArrayList<Student>();
+        for (int i = 0; i < 120; i++) {
+            students.add(student(i + 1, "学生" + i, i % 101));
+        }
+        // 名称过长且含有非法字符，导出时规范化，导入时仍可以用原来的名称
+        String sheetName = "2024/01学生成绩:明细表（第一学期期末考试全部班级）";
+        for (ExcelFormat format : new ExcelFormat[]{ExcelFormat.XLS, ExcelFormat.XLSX}) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ExcelUtils.listToExcel(students, Student.class, sheetName, 50, new ExportOptions().setFormat(format), os);
+            byte[] bytes = os.toByteArray();
+            for (int sheetNo = 1; sheetNo <= 3; sheetNo++) {
+                List<Student> imported = ExcelUtils.excelToList(new ByteArrayInputStream(bytes), SheetNames.numbered(sheetName, sheetNo),
+                        Student.class, UNIQUE_FIELDS, new ImportOptions());
+                assertEquals(format.name(), sheetNo == 3 ? 20 : 50, imported.size());
+                assertEquals(format.name(), (sheetNo - 1) * 50 + 1, imported.get(0).getId());
+            }
+
+            os = new ByteArrayOutputStream();
+            ExcelUtils.listToExcel(students, Student.class, sheetName, 0, new ExportOptions().setFormat(format), os);
+            assertEquals(format.name(), 120, ExcelUtils.excelToList(new ByteArrayInputStream(os.toByteArray()), sheetName,
+                    Student.class, UNIQUE_FIELDS, new ImportOptions()).size());
+        }
+    }
+
+    @Test
+    public void reportsInvalidCellsAndDuplicateKeys() throws Exception {
+        List<RawStudent> rows = new ArrayList<RawStudent>();
+        rows.add(raw("1", "张三", "90"));
+        rows.add(raw("2", "李四", "九十"));
+        rows.add(raw("1", "王五", "80"));
+        rows.add(raw("3", "赵六", "70"));
+        rows.add(raw("4", "钱七", ""));
+        rows.add(raw("x", "孙八", "60"));
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<String, String>();
+        fieldMap.put("id", "编号");
+        fieldMap.put("name", "姓名");
+        fieldMap.put("score", "分数");
+        for (ExcelFormat format : FORMATS) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ExcelUtils.listToExcel(rows, fieldMap, "学生", 0, new ExportOptions().setFormat(format), os);
+            ImportResult<Student> result = ExcelUtils.excelToResult(new ByteArrayInputStream(os.toByteArray()), "学生",
+                    Student.class, UNIQUE_FIELDS, new ImportOptions().setFormat(format));
+
+            assertTrue(format.name(), result.hasErrors());
+            assertFalse(format.name(), result.isTruncated());
+            List<Integer> ids = new ArrayList<Integer>();
+            for (Student student : result.getData()) {
+                ids.add(student.getId());
+            }
+            assertEquals(format.name(), "[1, 3]", ids.toString());
+
+            List<CellError> errors = result.getErrors();
+            assertEquals(format.name() + errors, 4, errors.size());
+            assertError(errors.get(0), 3, "分数", "九十");
+            assertError(errors.get(1), 4, "编号", "1");
+            assertEquals("与第2行重复", errors.get(1).getReason());
+            assertError(errors.get(2), 6, "分数", "");
+            assertError(errors.get(3), 7, "编号", "x");
+        }
+    }
+
+    @Test
+    public void stopsCollectingAtMaxErrors() throws Exception {
+        List<RawStudent> rows = new ArrayList<RawStudent>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(raw(String.valueOf(i), "学生" + i, "无效"));
+        }
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<String, String>();
+        fieldMap.put("id", "编号");
+        fieldMap.put("name", "姓名");
+        fieldMap.put("score", "分数");
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ExcelUtils.listToExcel(rows, fieldMap, "学生", 0, new ExportOptions().setFormat(ExcelFormat.CSV), os);
+        ImportResult<Student> result = ExcelUtils.excelToResult(new ByteArrayInputStream(os.toByteArray()), "学生",
+                Student.class, UNIQUE_FIELDS, new ImportOptions().setFormat(ExcelFormat.CSV).setMaxErrors(5));
+        assertEquals(5, result.getErrors().size());
+        assertTrue(result.isTruncated());
+        assertEquals(2, result.getErrors().get(0).getRow());
+    }
+
+    private static void assertError(CellError error, int row, String column, String value) {
+        assertEquals(error.toString(), row, error.getRow());
+        assertEquals(error.toString(), column, error.getColumn());
+        assertEquals(error.toString(), value, error.getValue());
+    }
+
+    private static Student student(int id, String name, int score) {
+        Student student = new Student();
+        student.setId(id);
+        student.setName(name);
+        student.setScore(score);
+        return student;
+    }
+
+    private static RawStudent raw(String id, String name, String score) {
+        RawStudent student = new RawStudent();
+        student.setId(id);
+        student.setName(name);
+        student.setScore(score);
+        return student;
+    }
+
+    /**
+     * 各列都是文本，用于导出无法按Student导入的内容
+     */
+    public static class RawStudent {
+
+        private String id;
+
+        private String name;
+
+        private String score;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getScore() {
+            return score;
+        }
+
+        public void setScore(String score) {
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.ccr.common.utils;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @Description XlsxWorkbookReader和XlsxSheetRowReader的测试，xlsx文件按需手工拼出，覆盖导出端不会生成的写法
+ */
+public class XlsxWorkbookReaderTest {
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    /**
+     * 0：普通文本；1：富文本（多段）；2：带拼音注释
+     */
+    private static final String SHARED_STRINGS = "<sst xmlns=\"" + NS_MAIN + "\">"
+            + "<si><t>共享</t></si>"
+            + "<si><r><rPr><b/></rPr><t>富</t></r><r><t xml:space=\"preserve\">文 本</t></r></si>"
+            + "<si><t>東京</t><rPh sb=\"0\" eb=\"2\"><t>トウキョウ</t></rPh><phoneticPr fontId=\"1\"/></si>"
+            + "</sst>";
+
+    /**
+     * 单元格样式 0：常规；1：内置日期格式14；2：自定义日期格式；3：带颜色的自定义数字格式（不是日期）
+     */
+    private static final String STYLES = "<styleSheet xmlns=\"" + NS_MAIN + "\">"
+            + "<numFmts count=\"2\"><numFmt numFmtId=\"164\" formatCode=\"yyyy&quot;年&quot;m&quot;月&quot;d&quot;日&quot;\"/>"
+            + "<numFmt numFmtId=\"165\" formatCode=\"[Red]0.00\"/></numFmts>"
+            + "<cellXfs count=\"4\"><xf numFmtId=\"0\"/><xf numFmtId=\"14\"/><xf numFmtId=\"164\"/><xf numFmtId=\"165\"/></cellXfs>"
+            + "</styleSheet>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private XlsxWorkbookReader workbook;
+
+    private XlsxSheetRowReader reader;
+
+    @After
+    public void tearDown() throws Exception {
+        if (reader != null) {
+            reader.close();
+        }
+        if (workbook != null) {
+            workbook.close();
+        }
+    }
+
+    @Test
+    public void readsSharedInlineRichAndPhoneticStrings() throws Exception {
+        open("<row r=\"1\">"
+                + "<c r=\"A1\" t=\"s\"><v>0</v></c>"
+                + "<c r=\"B1\" t=\"s\"><v>1</v></c>"
+                + "<c r=\"C1\" t=\"s\"><v>2</v></c>"
+                + "<c r=\"D1\" t=\"inlineStr\"><is><t>内联</t></is></c>"
+                + "<c r=\"E1\" t=\"inlineStr\"><is><r><t>a</t></r><r><rPr><i/></rPr><t>b</t></r></is></c>"
+                + "<c r=\"F1\" t=\"inlineStr\"><is><t>東京</t><rPh sb=\"0\" eb=\"2\"><t>トウキョウ</t></rPh></is></c>"
+                + "</row>");
+        assertArrayEquals(new String[]{"共享", "富文 本", "東京", "内联", "ab", "東京"}, reader.nextRow());
+        assertNull(reader.nextRow());
+    }
+
+    @Test
+    public void readsNumbersBooleansAndFormulaResults() throws Exception {
+        open("<row r=\"1\">"
+                + "<c r=\"A1\"><v>42</v></c>"
+                + "<c r=\"B1\" t=\"n\"><v>1.5E10</v></c>"
+                + "<c r=\"C1\" s=\"3\"><v>2.50</v></c>"
+                + "<c r=\"D1\" t=\"b\"><v>1</v></c>"
+                + "<c r=\"E1\" t=\"b\"><v>0</v></c>"
+                + "<c r=\"F1\" t=\"str\"><f>A1&amp;\"x\"</f><v>42x</v></c>"
+                + "<c r=\"G1\"><f>A1*2</f></c>"
+                + "</row>");
+        assertArrayEquals(new String[]{"42", "15000000000", "2.50", "true", "false", "42x", ""}, reader.nextRow());
+    }
+
+    @Test
+    public void formatsDateStylesWithImportPattern() throws Exception {
+        open("<row r=\"1\">"
+                + "<c r=\"A1\" s=\"1\"><v>45000</v></c>"
+                + "<c r=\"B1\" s=\"2\"><v>45000.5</v></c>"
+                + "<c r=\"C1\" s=\"0\"><v>45000</v></c>"
+                + "</row>");
+        assertArrayEquals(new String[]{"3/15/2023 0:00", "3/15/2023 12:00", "45000"}, reader.nextRow());
+        assertEquals("3/15/2023 12:00",
+                RowBinderPlan.DATE_FORMATTER.format(RowBinderPlan.parseDate(XlsxSheetRowReader.formatDate(45000.5))));
+    }
+
+    @Test
+    public void returnsOmittedRowsAndCellsAsEmpty() throws Exception {
+        open("<row r=\"2\"><c r=\"C2\"><v>1</v></c></row>"
+                + "<row r=\"5\"><c r=\"A5\"><v>2</v></c><c r=\"D5\"><v>3</v></c></row>");
+        assertEquals(0, reader.nextRow().length);
+        assertEquals(0, reader.getRowIndex());
+        assertArrayEquals(new String[]{"", "", "1"}, reader.nextRow());
+        assertEquals(1, reader.getRowIndex());
+        assertEquals(0, reader.nextRow().length);
+        assertEquals(0, reader.nextRow().length);
+        assertArrayEquals(new String[]{"2", "", "", "3"}, reader.nextRow());
+        assertEquals(4, reader.getRowIndex());
+        assertNull(reader.nextRow());
+    }
+
+    @Test
+    public void numbersRowsAndCellsWithoutReferences() throws Exception {
+        open("<row><c><v>1</v></c><c><v>2</v></c></row>"
+                + "<row><c r=\"B2\"><v>3</v></c><c><v>4</v></c></row>"
+                + "<row r=\"4\"><c><v>5</v></c></row>"
+                + "<row><c r=\"AA5\"><v>6</v></c></row>");
+        assertArrayEquals(new String[]{"1", "2"}, reader.nextRow());
+        assertArrayEquals(new String[]{"", "3", "4"}, reader.nextRow());
+        assertEquals(0, reader.nextRow().length);
+        assertArrayEquals(new String[]{"5"}, reader.nextRow());
+        assertEquals(3, reader.getRowIndex());
+        String[] row = reader.nextRow();
+        assertEquals(27, row.length);
+        assertEquals("6", row[26]);
+        assertEquals(4, reader.getRowIndex());
+        assertNull(reader.nextRow());
+    }
+
+    @Test
+    public void skipsUnwantedColumns() throws Exception {
+        open("<row r=\"1\">"
+                + "<c r=\"A1\" t=\"s\"><v>0</v></c>"
+                + "<c r=\"B1\" t=\"s\"><v>1</v></c>"
+                + "<c r=\"C1\" t=\"inlineStr\"><is><t>内联</t></is></c>"
+                + "<c r=\"D1\"/>"
+                + "<c r=\"E1\"><f>A1</f></c>"
+                + "<c r=\"F1\" s=\"1\"><v>45000</v></c>"
+                + "</row>"
+                + "<row r=\"2\"><c r=\"B2\"><v>1</v></c></row>");
+        reader.setColumns(new boolean[]{false, true, false});
+        assertArrayEquals(new String[]{SheetRowReader.SKIPPED, "富文 本", SheetRowReader.SKIPPED, "", "", SheetRowReader.SKIPPED},
+                reader.nextRow());
+        reader.setColumns(SheetRowReader.NO_COLUMNS);
+        assertArrayEquals(new String[]{"", SheetRowReader.SKIPPED}, reader.nextRow());
+        assertNull(reader.nextRow());
+    }
+
+    @Test
+    public void listsSheetsInWorkbookOrder() throws Exception {
+        open("<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c></row>");
+        assertArrayEquals(new String[]{"数据", "第二页"}, workbook.getSheetNames());
+        assertNull(workbook.openSheet("不存在"));
+        XlsxSheetRowReader second = workbook.openSheet("第二页");
+        try {
+            assertArrayEquals(new String[]{"共享"}, second.nextRow());
+            assertNull(second.nextRow());
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    public void detectsDateFormats() {
+        assertTrue(XlsxWorkbookReader.isDateFormat(14, null));
+        assertTrue(XlsxWorkbookReader.isDateFormat(22, null));
+        assertFalse(XlsxWorkbookReader.isDateFormat(0, null));
+        assertFalse(XlsxWorkbookReader.isDateFormat(4, "#,##0.00"));
+        assertTrue(XlsxWorkbookReader.isDateFormat(164, "yyyy/mm/dd hh:mm"));
+        assertTrue(XlsxWorkbookReader.isDateFormat(164, "[$-804]yyyy\"年\"m\"月\""));
+        assertFalse(XlsxWorkbookReader.isDateFormat(165, "[Red]0.00"));
+        assertFalse(XlsxWorkbookReader.isDateFormat(166, "0\"days\""));
+        assertFalse(XlsxWorkbookReader.isDateFormat(167, "0\\d"));
+    }
+
+    /**
+     * 生成包含两个工作表的xlsx文件并打开第一个工作表：第一个工作表的内容为sheetData，第二个工作表只有一个单元格
+     */
+    private void open(String sheetData) throws Exception {
+        File file = folder.newFile("test.xlsx");
+        ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            put(zos, "_rels/.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                    + "</Relationships>");
+            put(zos, "xl/workbook.xml", "<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_REL + "\"><sheets>"
+                    + "<sheet name=\"数据\" sheetId=\"1\" r:id=\"rId1\"/>"
+                    + "<sheet name=\"第二页\" sheetId=\"2\" r:id=\"rId2\"/>"
+                    + "</sheets></workbook>");
+            put(zos, "xl/_rels/workbook.xml.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+                    + "<Relationship Id=\"rId2\" Type=\"" + NS_REL + "/worksheet\" Target=\"/xl/worksheets/sheet2.xml\"/>"
+                    + "<Relationship Id=\"rId3\" Type=\"" + NS_REL + "/sharedStrings\" Target=\"sharedStrings.xml\"/>"
+                    + "<Relationship Id=\"rId4\" Type=\"" + NS_REL + "/styles\" Target=\"styles.xml\"/>"
+                    + "</Relationships>");
+            put(zos, "xl/sharedStrings.xml", SHARED_STRINGS);
+            put(zos, "xl/styles.xml", STYLES);
+            put(zos, "xl/worksheets/sheet1.xml", "<worksheet xmlns=\"" + NS_MAIN + "\"><sheetData>" + sheetData + "</sheetData></worksheet>");
+            put(zos, "xl/worksheets/sheet2.xml", "<worksheet xmlns=\"" + NS_MAIN + "\"><sheetData>"
+                    + "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c></row></sheetData></worksheet>");
+        } finally {
+            zos.close();
+        }
+        workbook = new XlsxWorkbookReader(file, false);
+        reader = workbook.openSheet("数据");
+    }
+
+    private static void put(ZipOutputStream zos, String name, String xml) throws Exception {
+        zos.putNextEntry(new ZipEntry(name));
+        zos.write(("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" + xml).getBytes(StandardCharsets.UTF_8));
+        zos.closeEntry();
+    }
+}